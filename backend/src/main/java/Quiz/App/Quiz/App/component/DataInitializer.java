@@ -92,6 +92,7 @@ public class DataInitializer implements CommandLineRunner {
         javaQuiz.setDescription("Test your knowledge of Java programming fundamentals");
         javaQuiz.setIsActive(true);
         javaQuiz.setTotalMarks(50);
+        javaQuiz.setQuestionCount(5);
         javaQuiz.setDurationMinutes(15); // Add duration
         javaQuiz.setDifficulty("EASY");
         Quiz savedJavaQuiz = quizRepository.save(javaQuiz);
@@ -109,6 +109,7 @@ public class ProductionDataInitializer implements CommandLineRunner {
         javaQuiz.setDescription("Test your knowledge of Java programming fundamentals");
         javaQuiz.setIsActive(true);
         javaQuiz.setTotalMarks(50);
+        javaQuiz.setQuestionCount(5);
         javaQuiz.setDurationMinutes(15);
         javaQuiz.setDifficulty("EASY");
         Quiz savedJavaQuiz = quizRepository.save(javaQuiz);
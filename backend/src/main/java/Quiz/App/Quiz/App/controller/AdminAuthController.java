@@ -8,10 +8,12 @@ import Quiz.App.Quiz.App.repository.UserRepository;
 import Quiz.App.Quiz.App.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 
@@ -40,6 +42,8 @@ public class AdminAuthController {
             } else {
                 return ResponseEntity.status(403).body("Access denied. Admin privileges required.");
             }
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -58,16 +62,6 @@ public class AdminAuthController {
     @PostMapping("/register")
     public ResponseEntity<?> adminRegister(@Valid @RequestBody RegisterRequest request) {
         try {
-            // Check if username already exists
-            if (userRepository.findByUsername(request.getUsername()).isPresent()) {
-                return ResponseEntity.badRequest().body("Username already exists");
-            }
-            
-            // Check if email already exists
-            if (userRepository.findByEmail(request.getEmail()).isPresent()) {
-                return ResponseEntity.badRequest().body("Email already exists");
-            }
-            
             // Create new admin user
             User admin = new User();
             admin.setUsername(request.getUsername());
@@ -76,7 +70,13 @@ public class AdminAuthController {
             admin.setRole(User.Role.ADMIN);
             admin.setCreatedAt(LocalDateTime.now());
             
-            userRepository.save(admin);
+            // Single insert; the unique indexes on username and email reject duplicates
+            try {
+                userRepository.insert(admin);
+            } catch (DuplicateKeyException e) {
+                return ResponseEntity.badRequest().body("email".equals(AuthService.duplicateField(e))
+                        ? "Email already exists" : "Username already exists");
+            }
             
             // Use existing auth service to login the new admin
             LoginRequest loginRequest = new LoginRequest();
@@ -86,6 +86,9 @@ public class AdminAuthController {
             JwtResponse response = authService.login(loginRequest);
             return ResponseEntity.ok(response);
             
+        } catch (ResponseStatusException e) {
+            // Password hashing is overloaded
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to create admin account: " + e.getMessage());
         }
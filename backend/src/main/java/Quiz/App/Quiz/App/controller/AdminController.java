@@ -1,17 +1,33 @@
 package Quiz.App.Quiz.App.controller;
 
+import Quiz.App.Quiz.App.dto.PurgeJobDto;
+import Quiz.App.Quiz.App.dto.QuestionImportResultDto;
 import Quiz.App.Quiz.App.dto.QuestionRequest;
 import Quiz.App.Quiz.App.dto.QuizRequest;
 import Quiz.App.Quiz.App.entity.Question;
 import Quiz.App.Quiz.App.entity.Quiz;
 import Quiz.App.Quiz.App.service.AdminService;
+import Quiz.App.Quiz.App.service.ExportService;
+import Quiz.App.Quiz.App.service.QuestionImportService;
+import Quiz.App.Quiz.App.service.ResultPurgeService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -21,6 +37,17 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
     
+    @Autowired
+    private ResultPurgeService resultPurgeService;
+    
+    @Autowired
+    private QuestionImportService questionImportService;
+    
+    @Autowired
+    private ExportService exportService;
+    
+    private static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+    
     // Quiz Management
     @PostMapping("/quizzes")
     public ResponseEntity<Quiz> createQuiz(@Valid @RequestBody QuizRequest request) {
@@ -36,7 +63,11 @@ public class AdminController {
     
     @DeleteMapping("/quizzes/{id}")
     public ResponseEntity<?> deleteQuiz(@PathVariable String id) {
-        adminService.deleteQuiz(id);
+        Optional<PurgeJobDto> purge = adminService.deleteQuiz(id);
+        if (purge.isPresent()) {
+            // Results are still being deleted, poll the job for progress
+            return ResponseEntity.accepted().body(purge.get());
+        }
         return ResponseEntity.ok("Quiz deleted successfully");
     }
     
@@ -46,6 +77,11 @@ public class AdminController {
         return ResponseEntity.ok(quizzes);
     }
     
+    @PostMapping("/quizzes/reconcile-totals")
+    public ResponseEntity<?> reconcileQuizTotals() {
+        return ResponseEntity.ok(adminService.reconcileQuizTotals());
+    }
+    
     // Question Management
     @PostMapping("/questions")
     public ResponseEntity<Question> createQuestion(@Valid @RequestBody QuestionRequest request) {
@@ -53,6 +89,20 @@ public class AdminController {
         return ResponseEntity.ok(question);
     }
     
+    /**
+     * Import questions from a CSV file with a header row, or from NDJSON with one question per line.
+     * The body is read as a stream, so files of any size can be sent.
+     */
+    @PostMapping(value = "/quizzes/{id}/questions/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<QuestionImportResultDto> importQuestions(@PathVariable String id,
+                                                                   @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                   InputStream body) {
+        QuestionImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)
+                ? QuestionImportService.Format.CSV
+                : QuestionImportService.Format.NDJSON;
+        return ResponseEntity.ok(questionImportService.importQuestions(id, body, format));
+    }
+    
     @PutMapping("/questions/{id}")
     public ResponseEntity<Question> updateQuestion(@PathVariable String id, @Valid @RequestBody QuestionRequest request) {
         Question question = adminService.updateQuestion(id, request);
@@ -83,12 +133,31 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getDashboardStats());
     }
     
+    // Performance Metrics
+    @GetMapping("/metrics")
+    public ResponseEntity<?> getPerformanceMetrics() {
+        return ResponseEntity.ok(adminService.getPerformanceMetrics());
+    }
+    
     // User Management
     @GetMapping("/users")
     public ResponseEntity<?> getAllUsers() {
         return ResponseEntity.ok(adminService.getAllUsers());
     }
     
+    /**
+     * Stream users created in [from, to) as NDJSON or CSV, without passwords.
+     */
+    @GetMapping("/users/export")
+    public void exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                            HttpServletResponse response) throws IOException {
+        ExportService.Format exportFormat = exportFormat(format);
+        startExport(response, exportFormat, "users");
+        exportService.exportUsers(response.getOutputStream(), exportFormat, from, to);
+    }
+    
     @GetMapping("/users/detailed")
     public ResponseEntity<?> getAllUsersWithStats() {
         return ResponseEntity.ok(adminService.getAllUsersWithStats());
@@ -102,7 +171,10 @@ public class AdminController {
     
     @DeleteMapping("/user/{id}")
     public ResponseEntity<?> deleteUser(@PathVariable String id) {
-        adminService.deleteUser(id);
+        Optional<PurgeJobDto> purge = adminService.deleteUser(id);
+        if (purge.isPresent()) {
+            return ResponseEntity.accepted().body(purge.get());
+        }
         return ResponseEntity.ok("User deleted successfully");
     }
     
@@ -128,6 +200,20 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getAllResults());
     }
     
+    /**
+     * Stream results completed in [from, to), optionally for one quiz, as NDJSON or CSV.
+     */
+    @GetMapping("/results/export")
+    public void exportResults(@RequestParam(defaultValue = "ndjson") String format,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                              @RequestParam(required = false) String quizId,
+                              HttpServletResponse response) throws IOException {
+        ExportService.Format exportFormat = exportFormat(format);
+        startExport(response, exportFormat, "results");
+        exportService.exportResults(response.getOutputStream(), exportFormat, from, to, quizId);
+    }
+    
     @GetMapping("/user/{userId}/results")
     public ResponseEntity<?> getUserResults(@PathVariable String userId) {
         return ResponseEntity.ok(adminService.getUserResults(userId));
@@ -138,4 +224,37 @@ public class AdminController {
         adminService.deleteResult(id);
         return ResponseEntity.ok("Result deleted successfully");
     }
+    
+    // Purge Jobs
+    @GetMapping("/purge-jobs")
+    public ResponseEntity<List<PurgeJobDto>> getPurgeJobs() {
+        return ResponseEntity.ok(resultPurgeService.getJobs());
+    }
+    
+    @GetMapping("/purge-jobs/{id}")
+    public ResponseEntity<?> getPurgeJob(@PathVariable String id) {
+        return resultPurgeService.getJob(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/purge-jobs/orphans")
+    public ResponseEntity<PurgeJobDto> purgeOrphans() {
+        return ResponseEntity.accepted().body(resultPurgeService.purgeOrphans());
+    }
+    
+    private static ExportService.Format exportFormat(String format) {
+        try {
+            return ExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Export format must be ndjson or csv");
+        }
+    }
+    
+    private static void startExport(HttpServletResponse response, ExportService.Format format, String name) {
+        boolean csv = format == ExportService.Format.CSV;
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + (csv ? ".csv" : ".ndjson") + "\"");
+    }
 }
@@ -2,11 +2,14 @@ package Quiz.App.Quiz.App.controller;
 
 import Quiz.App.Quiz.App.entity.User;
 import Quiz.App.Quiz.App.repository.UserRepository;
+import Quiz.App.Quiz.App.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -35,18 +38,6 @@ public class AdminRegistrationController {
                     .body(Map.of("error", "Invalid admin secret key"));
             }
             
-            // Check if username already exists
-            if (userRepository.findByUsername(request.getUsername()).isPresent()) {
-                return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Username already exists"));
-            }
-            
-            // Check if email already exists
-            if (userRepository.findByEmail(request.getEmail()).isPresent()) {
-                return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Email already exists"));
-            }
-            
             // Create admin user
             User admin = new User();
             admin.setUsername(request.getUsername());
@@ -55,7 +46,14 @@ public class AdminRegistrationController {
             admin.setRole(User.Role.ADMIN);
             admin.setCreatedAt(LocalDateTime.now());
             
-            userRepository.save(admin);
+            // Single insert; the unique indexes on username and email reject duplicates
+            try {
+                userRepository.insert(admin);
+            } catch (DuplicateKeyException e) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("error", "email".equals(AuthService.duplicateField(e))
+                        ? "Email already exists" : "Username already exists"));
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Admin account created successfully");
@@ -64,6 +62,10 @@ public class AdminRegistrationController {
             
             return ResponseEntity.ok(response);
             
+        } catch (ResponseStatusException e) {
+            // Password hashing is overloaded
+            return ResponseEntity.status(e.getStatusCode())
+                .body(Map.of("error", e.getReason() != null ? e.getReason() : e.getStatusCode().toString()));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(Map.of("error", "Failed to create admin account: " + e.getMessage()));
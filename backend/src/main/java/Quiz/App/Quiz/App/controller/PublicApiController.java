@@ -3,12 +3,14 @@ package Quiz.App.Quiz.App.controller;
 import Quiz.App.Quiz.App.dto.QuizHistoryDto;
 import Quiz.App.Quiz.App.dto.QuizResultResponse;
 import Quiz.App.Quiz.App.dto.QuizSubmissionRequest;
+import Quiz.App.Quiz.App.dto.QuizSummaryDto;
 import Quiz.App.Quiz.App.entity.Quiz;
 import Quiz.App.Quiz.App.entity.Question;
 import Quiz.App.Quiz.App.service.QuizService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.Map;
@@ -21,14 +23,14 @@ public class PublicApiController {
     private QuizService quizService;
     
     @GetMapping("/quiz/available")
-    public ResponseEntity<List<Quiz>> getAvailableQuizzes() {
-        List<Quiz> quizzes = quizService.getActiveQuizzes();
+    public ResponseEntity<List<QuizSummaryDto>> getAvailableQuizzes() {
+        List<QuizSummaryDto> quizzes = quizService.getActiveQuizzes();
         return ResponseEntity.ok(quizzes);
     }
     
     @GetMapping("/quiz/all")
-    public ResponseEntity<List<Quiz>> getAllQuizzes() {
-        List<Quiz> quizzes = quizService.getAllQuizzes();
+    public ResponseEntity<List<QuizSummaryDto>> getAllQuizzes() {
+        List<QuizSummaryDto> quizzes = quizService.getAllQuizzes();
         return ResponseEntity.ok(quizzes);
     }
     
@@ -49,6 +51,11 @@ public class PublicApiController {
         try {
             QuizResultResponse result = quizService.submitQuizPublic(request.getQuizId(), request);
             return ResponseEntity.ok(result);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of(
+                "error", "Quiz submission failed",
+                "message", e.getReason()
+            ));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "error", "Quiz submission failed",
@@ -2,11 +2,13 @@ package Quiz.App.Quiz.App.controller;
 
 import Quiz.App.Quiz.App.dto.LeaderboardEntryDto;
 import Quiz.App.Quiz.App.dto.LeaderboardStatsDto;
+import Quiz.App.Quiz.App.service.LeaderboardResponseCache;
 import Quiz.App.Quiz.App.service.LeaderboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collections;
 import java.util.List;
 
 @RestController
@@ -16,16 +18,15 @@ public class PublicLeaderboardController {
     @Autowired
     private LeaderboardService leaderboardService;
 
+    @Autowired
+    private LeaderboardResponseCache responseCache;
+
     @GetMapping("/global")
     public ResponseEntity<List<LeaderboardEntryDto>> getGlobalLeaderboard(@RequestParam(defaultValue = "50") int limit) {
         try {
-            List<LeaderboardEntryDto> leaderboard = leaderboardService.getGlobalLeaderboard(limit);
-            
-            // Add rank numbers
-            for (int i = 0; i < leaderboard.size(); i++) {
-                leaderboard.get(i).setRank(i + 1);
-            }
-            
+            int pageSize = LeaderboardService.clamp(limit);
+            List<LeaderboardEntryDto> leaderboard = responseCache.get("global:" + pageSize,
+                    () -> withRanks(leaderboardService.getGlobalLeaderboard(pageSize)));
             return ResponseEntity.ok(leaderboard);
         } catch (Exception e) {
             e.printStackTrace();
@@ -38,13 +39,9 @@ public class PublicLeaderboardController {
             @PathVariable String quizId, 
             @RequestParam(defaultValue = "20") int limit) {
         try {
-            List<LeaderboardEntryDto> leaderboard = leaderboardService.getQuizLeaderboard(quizId, limit);
-            
-            // Add rank numbers
-            for (int i = 0; i < leaderboard.size(); i++) {
-                leaderboard.get(i).setRank(i + 1);
-            }
-            
+            int pageSize = LeaderboardService.clamp(limit);
+            List<LeaderboardEntryDto> leaderboard = responseCache.get("quiz:" + quizId + ":" + pageSize,
+                    () -> withRanks(leaderboardService.getQuizLeaderboard(quizId, pageSize)));
             return ResponseEntity.ok(leaderboard);
         } catch (Exception e) {
             e.printStackTrace();
@@ -55,13 +52,9 @@ public class PublicLeaderboardController {
     @GetMapping("/recent")
     public ResponseEntity<List<LeaderboardEntryDto>> getRecentLeaderboard(@RequestParam(defaultValue = "20") int limit) {
         try {
-            List<LeaderboardEntryDto> leaderboard = leaderboardService.getRecentLeaderboard(limit);
-            
-            // Add rank numbers
-            for (int i = 0; i < leaderboard.size(); i++) {
-                leaderboard.get(i).setRank(i + 1);
-            }
-            
+            int pageSize = LeaderboardService.clamp(limit);
+            List<LeaderboardEntryDto> leaderboard = responseCache.get("recent:" + pageSize,
+                    () -> withRanks(leaderboardService.getRecentLeaderboard(pageSize)));
             return ResponseEntity.ok(leaderboard);
         } catch (Exception e) {
             e.printStackTrace();
@@ -72,13 +65,9 @@ public class PublicLeaderboardController {
     @GetMapping("/top-performers")
     public ResponseEntity<List<LeaderboardEntryDto>> getTopPerformers(@RequestParam(defaultValue = "10") int limit) {
         try {
-            List<LeaderboardEntryDto> leaderboard = leaderboardService.getTopPerformers(limit);
-            
-            // Add rank numbers
-            for (int i = 0; i < leaderboard.size(); i++) {
-                leaderboard.get(i).setRank(i + 1);
-            }
-            
+            int pageSize = LeaderboardService.clamp(limit);
+            List<LeaderboardEntryDto> leaderboard = responseCache.get("top-performers:" + pageSize,
+                    () -> withRanks(leaderboardService.getTopPerformers(pageSize)));
             return ResponseEntity.ok(leaderboard);
         } catch (Exception e) {
             e.printStackTrace();
@@ -89,7 +78,7 @@ public class PublicLeaderboardController {
     @GetMapping("/stats")
     public ResponseEntity<LeaderboardStatsDto> getLeaderboardStats() {
         try {
-            LeaderboardStatsDto stats = leaderboardService.getLeaderboardStats();
+            LeaderboardStatsDto stats = responseCache.get("stats", leaderboardService::getLeaderboardStats);
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
             e.printStackTrace();
@@ -100,7 +89,8 @@ public class PublicLeaderboardController {
     @GetMapping("/my-ranking/{username}")
     public ResponseEntity<List<LeaderboardEntryDto>> getMyRanking(@PathVariable String username) {
         try {
-            List<LeaderboardEntryDto> ranking = leaderboardService.getMyRankingByUsername(username, 0);
+            List<LeaderboardEntryDto> ranking = responseCache.get("my-ranking:" + username,
+                    () -> Collections.unmodifiableList(leaderboardService.getMyRankingByUsername(username, 0)));
             return ResponseEntity.ok(ranking);
         } catch (Exception e) {
             e.printStackTrace();
@@ -111,7 +101,8 @@ public class PublicLeaderboardController {
     @GetMapping("/my-personal-ranking/{username}")
     public ResponseEntity<LeaderboardEntryDto> getMyPersonalRanking(@PathVariable String username) {
         try {
-            LeaderboardEntryDto personalRanking = leaderboardService.getMyPersonalRanking(username);
+            LeaderboardEntryDto personalRanking = responseCache.get("my-personal-ranking:" + username,
+                    () -> leaderboardService.getMyPersonalRanking(username));
             if (personalRanking != null) {
                 return ResponseEntity.ok(personalRanking);
             } else {
@@ -123,16 +114,27 @@ public class PublicLeaderboardController {
         }
     }
     
+    @GetMapping("/around/{username}")
+    public ResponseEntity<List<LeaderboardEntryDto>> getRankingNeighbours(
+            @PathVariable String username,
+            @RequestParam(defaultValue = "5") int context) {
+        try {
+            int window = LeaderboardService.clampContext(context);
+            List<LeaderboardEntryDto> neighbours = responseCache.get("around:" + username + ":" + window,
+                    () -> Collections.unmodifiableList(leaderboardService.getRankingNeighbours(username, window)));
+            return ResponseEntity.ok(neighbours);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+    
     @GetMapping("/weekly")
     public ResponseEntity<List<LeaderboardEntryDto>> getWeeklyLeaderboard(@RequestParam(defaultValue = "20") int limit) {
         try {
-            List<LeaderboardEntryDto> leaderboard = leaderboardService.getWeeklyLeaderboard(limit);
-            
-            // Add rank numbers
-            for (int i = 0; i < leaderboard.size(); i++) {
-                leaderboard.get(i).setRank(i + 1);
-            }
-            
+            int pageSize = LeaderboardService.clamp(limit);
+            List<LeaderboardEntryDto> leaderboard = responseCache.get("weekly:" + pageSize,
+                    () -> withRanks(leaderboardService.getWeeklyLeaderboard(pageSize)));
             return ResponseEntity.ok(leaderboard);
         } catch (Exception e) {
             e.printStackTrace();
@@ -143,17 +145,21 @@ public class PublicLeaderboardController {
     @GetMapping("/monthly")
     public ResponseEntity<List<LeaderboardEntryDto>> getMonthlyLeaderboard(@RequestParam(defaultValue = "20") int limit) {
         try {
-            List<LeaderboardEntryDto> leaderboard = leaderboardService.getMonthlyLeaderboard(limit);
-            
-            // Add rank numbers
-            for (int i = 0; i < leaderboard.size(); i++) {
-                leaderboard.get(i).setRank(i + 1);
-            }
-            
+            int pageSize = LeaderboardService.clamp(limit);
+            List<LeaderboardEntryDto> leaderboard = responseCache.get("monthly:" + pageSize,
+                    () -> withRanks(leaderboardService.getMonthlyLeaderboard(pageSize)));
             return ResponseEntity.ok(leaderboard);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(null);
         }
     }
+    
+    // Ranks are set before the list is cached, since cached lists are shared between requests
+    private static List<LeaderboardEntryDto> withRanks(List<LeaderboardEntryDto> leaderboard) {
+        for (int i = 0; i < leaderboard.size(); i++) {
+            leaderboard.get(i).setRank(i + 1);
+        }
+        return Collections.unmodifiableList(leaderboard);
+    }
 }
@@ -1,8 +1,10 @@
 package Quiz.App.Quiz.App.controller;
 
 import Quiz.App.Quiz.App.dto.QuizHistoryDto;
+import Quiz.App.Quiz.App.dto.QuizHistoryPageDto;
 import Quiz.App.Quiz.App.dto.QuizResultResponse;
 import Quiz.App.Quiz.App.dto.QuizSubmissionRequest;
+import Quiz.App.Quiz.App.dto.QuizSummaryDto;
 import Quiz.App.Quiz.App.entity.Question;
 import Quiz.App.Quiz.App.entity.Quiz;
 import Quiz.App.Quiz.App.entity.QuizResult;
@@ -23,14 +25,14 @@ public class QuizController {
     private QuizService quizService;
     
     @GetMapping("/available")
-    public ResponseEntity<List<Quiz>> getAvailableQuizzes() {
-        List<Quiz> quizzes = quizService.getActiveQuizzes();
+    public ResponseEntity<List<QuizSummaryDto>> getAvailableQuizzes() {
+        List<QuizSummaryDto> quizzes = quizService.getActiveQuizzes();
         return ResponseEntity.ok(quizzes);
     }
     
     @GetMapping("/all")
-    public ResponseEntity<List<Quiz>> getAllQuizzes() {
-        List<Quiz> quizzes = quizService.getAllQuizzes();
+    public ResponseEntity<List<QuizSummaryDto>> getAllQuizzes() {
+        List<QuizSummaryDto> quizzes = quizService.getAllQuizzes();
         return ResponseEntity.ok(quizzes);
     }
     
@@ -82,6 +84,17 @@ public class QuizController {
         return ResponseEntity.ok(history);
     }
     
+    @GetMapping("/history/page")
+    public ResponseEntity<QuizHistoryPageDto> getUserQuizHistoryPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        
+        QuizHistoryPageDto page = quizService.getUserQuizHistoryPageByUsername(username, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+    
     @GetMapping("/history/summary")
     public ResponseEntity<List<QuizHistoryDto>> getUserQuizHistorySummary() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
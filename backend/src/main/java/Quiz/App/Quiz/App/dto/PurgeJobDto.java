@@ -0,0 +1,26 @@
+package Quiz.App.Quiz.App.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a background purge of quiz results and their answers.
+ * totalResults is counted when the job starts, and is 0 for orphan sweeps,
+ * which only find out what to delete as they go.
+ */
+@Data
+public class PurgeJobDto {
+    private String id;
+    private String type;
+    private String target;
+    private String status;
+    private long totalResults;
+    private long resultsDeleted;
+    private long answersDeleted;
+    private double progress;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
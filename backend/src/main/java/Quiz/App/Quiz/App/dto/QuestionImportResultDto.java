@@ -0,0 +1,31 @@
+package Quiz.App.Quiz.App.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk question import. Only the first errors are listed;
+ * failed counts every rejected row.
+ */
+@Data
+public class QuestionImportResultDto {
+    private String quizId;
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private boolean errorsTruncated;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        // 1-based data row; the CSV header is not counted
+        private long row;
+        private String message;
+    }
+}
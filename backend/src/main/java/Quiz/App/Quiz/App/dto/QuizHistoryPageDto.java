@@ -0,0 +1,12 @@
+package Quiz.App.Quiz.App.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class QuizHistoryPageDto {
+    private List<QuizResultResponse> results;
+    // Pass back as ?cursor= to get the next page; null on the last page
+    private String nextCursor;
+}
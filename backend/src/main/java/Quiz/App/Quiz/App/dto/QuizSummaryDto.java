@@ -0,0 +1,22 @@
+package Quiz.App.Quiz.App.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lean catalog view of a quiz. Carries the question count instead of
+ * the questions themselves so catalog endpoints never load questions.
+ */
+@Data
+public class QuizSummaryDto {
+    private String id;
+    private String title;
+    private String description;
+    private Integer durationMinutes;
+    private Integer totalMarks;
+    private String difficulty;
+    private LocalDateTime createdAt;
+    private Boolean isActive;
+    private Integer questionCount;
+}
@@ -27,9 +27,13 @@ public class Quiz {
     @Field("duration_minutes")
     private Integer durationMinutes;
     
+    // Kept in step with the questions by $inc on every question change
     @Field("total_marks")
     private Integer totalMarks;
     
+    @Field("question_count")
+    private Integer questionCount;
+    
     private String difficulty = "MEDIUM";
     
     @Field("created_at")
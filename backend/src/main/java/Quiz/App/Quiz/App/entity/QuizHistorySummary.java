@@ -0,0 +1,66 @@
+package Quiz.App.Quiz.App.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user's attempts at one quiz, summarized. Upserted on every submission
+ * so quiz history is a single indexed read.
+ */
+@Document(collection = "quiz_history_summaries")
+@CompoundIndex(name = "user_id_last_attempt_desc", def = "{ 'user_id' : 1, 'last_attempt' : -1 }")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizHistorySummary {
+    
+    // "<userId>:<quizId>"
+    @Id
+    private String id;
+    
+    @Field("user_id")
+    private String userId;
+    
+    @Field("quiz_id")
+    private String quizId;
+    
+    @Field("quiz_title")
+    private String quizTitle;
+    
+    @Field("total_questions")
+    private Integer totalQuestions;
+    
+    @Field("attempt_count")
+    private int attemptCount;
+    
+    @Field("total_score")
+    private long totalScore;
+    
+    @Field("best_score")
+    private int bestScore;
+    
+    // Score of the most recent attempt
+    @Field("latest_score")
+    private int latestScore;
+    
+    @Field("first_attempt")
+    private LocalDateTime firstAttempt;
+    
+    @Field("last_attempt")
+    private LocalDateTime lastAttempt;
+    
+    public static String idOf(String userId, String quizId) {
+        return userId + ":" + quizId;
+    }
+    
+    public double getAverageScore() {
+        return attemptCount > 0 ? (double) totalScore / attemptCount : 0.0;
+    }
+}
@@ -1,5 +1,6 @@
 package Quiz.App.Quiz.App.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,8 +9,10 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
+// Indexes are declared and reconciled by MongoIndexManager
 @Document(collection = "quiz_results")
 @Data
 @NoArgsConstructor
@@ -51,11 +54,14 @@ public class QuizResult {
     @Field("time_taken_seconds")
     private Integer timeTakenSeconds;
     
+    // MongoDB stores milliseconds, so in-memory copies must not carry more precision than stored ones
     @Field("completed_at")
-    private LocalDateTime completedAt = LocalDateTime.now();
+    private LocalDateTime completedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
     
-    // Note: UserAnswers will be managed through repository queries
-    // instead of direct object mapping
+    // Answers are embedded so a submission is persisted in a single write.
+    // Results stored before answers were embedded keep them in user_answers.
+    @JsonIgnore
+    private List<UserAnswer> answers;
     
     // Helper methods for leaderboard
     public Integer getTotalMarks() {
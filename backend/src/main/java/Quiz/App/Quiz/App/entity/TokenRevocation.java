@@ -0,0 +1,46 @@
+package Quiz.App.Quiz.App.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.util.Date;
+
+/**
+ * A revoked token, or a cutoff before which all of a user's tokens are revoked.
+ * Shared by every node through MongoDB so revocations survive restarts.
+ */
+@Document(collection = "token_revocations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocation {
+
+    // "token:<jti>" for a single token, "user:<userId>" for a user cutoff
+    @Id
+    private String id;
+
+    @Field("token_id")
+    private String tokenId;
+
+    @Field("user_id")
+    private String userId;
+
+    // Epoch second; the user's tokens issued at or before it are revoked
+    @Field("not_before")
+    private Long notBefore;
+
+    // MongoDB removes the entry once no token it matches can still be valid
+    @Indexed(expireAfter = "0s")
+    @Field("expires_at")
+    private Date expiresAt;
+
+    // Set by the server on every write, so nodes can poll for new entries
+    @Indexed
+    @Field("revoked_at")
+    private Date revokedAt;
+}
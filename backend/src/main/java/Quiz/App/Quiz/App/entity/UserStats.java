@@ -0,0 +1,46 @@
+package Quiz.App.Quiz.App.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of a user's quiz results, keyed by user id.
+ * Maintained with $inc/$max upserts as results are written.
+ */
+@Document(collection = "user_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStats {
+    
+    // Same value as the user's id
+    @Id
+    private String userId;
+    
+    private String username;
+    
+    // Most active user lookups read the top of this index
+    @Indexed(direction = IndexDirection.DESCENDING)
+    private long attempts;
+    
+    @Field("total_score")
+    private long totalScore;
+    
+    @Field("best_score")
+    private int bestScore;
+    
+    @Field("last_activity")
+    private LocalDateTime lastActivity;
+    
+    public double getAverageScore() {
+        return attempts > 0 ? (double) totalScore / attempts : 0.0;
+    }
+}
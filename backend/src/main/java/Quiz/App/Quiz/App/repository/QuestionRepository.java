@@ -4,10 +4,12 @@ import Quiz.App.Quiz.App.entity.Question;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface QuestionRepository extends MongoRepository<Question, String> {
     List<Question> findByQuizId(String quizId);
+    List<Question> findByQuizIdIn(Collection<String> quizIds);
     void deleteByQuizId(String quizId);
 }
@@ -0,0 +1,13 @@
+package Quiz.App.Quiz.App.repository;
+
+import Quiz.App.Quiz.App.entity.QuizHistorySummary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface QuizHistorySummaryRepository extends MongoRepository<QuizHistorySummary, String> {
+    List<QuizHistorySummary> findByUserIdOrderByLastAttemptDesc(String userId);
+    void deleteByUserId(String userId);
+}
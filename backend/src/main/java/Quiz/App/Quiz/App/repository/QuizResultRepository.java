@@ -1,6 +1,8 @@
 package Quiz.App.Quiz.App.repository;
 
 import Quiz.App.Quiz.App.entity.QuizResult;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.Aggregation;
@@ -13,22 +15,30 @@ import java.util.Map;
 @Repository
 public interface QuizResultRepository extends MongoRepository<QuizResult, String> {
     List<QuizResult> findByUserIdOrderByCompletedAtDesc(String userId);
-    List<QuizResult> findByQuizIdOrderByScoreDesc(String quizId);
     List<QuizResult> findByUserId(String userId);
     void deleteByUserId(String userId);
     
     // Count queries
     Long countByUserId(String userId);
     
-    // Leaderboard specific methods without Pageable (MongoDB native)
-    @Query(value = "{}", sort = "{ 'score' : -1 }")
-    List<QuizResult> findTopByOrderByScoreDesc(int limit);
+    // Leaderboard queries push the limit down to MongoDB and skip the embedded answers,
+    // each one backed by a matching index in MongoIndexManager.INDEXES
+    @Query(value = "{}", sort = "{ 'score' : -1 }", fields = "{ 'answers' : 0 }")
+    List<QuizResult> findTopByOrderByScoreDesc(Limit limit);
     
-    @Query(value = "{ 'quizId' : ?0 }", sort = "{ 'score' : -1 }")
-    List<QuizResult> findTopByQuizIdOrderByScoreDesc(String quizId, int limit);
+    @Query(value = "{ 'quizId' : ?0 }", sort = "{ 'score' : -1 }", fields = "{ 'answers' : 0 }")
+    List<QuizResult> findTopByQuizIdOrderByScoreDesc(String quizId, Limit limit);
     
-    @Query(value = "{ 'completedAt' : { '$gte' : ?0 } }", sort = "{ 'score' : -1 }")
-    List<QuizResult> findTopByCompletedAtAfterOrderByScoreDesc(LocalDateTime fromDate, int limit);
+    @Query(value = "{ 'completedAt' : { '$gte' : ?0 } }", sort = "{ 'score' : -1 }", fields = "{ 'answers' : 0 }")
+    List<QuizResult> findTopByCompletedAtAfterOrderByScoreDesc(LocalDateTime fromDate, Limit limit);
+    
+    // History pages, newest first, continuing after the (completedAt, id) of the previous page
+    @Query(value = "{ 'userId' : ?0 }", sort = "{ 'completedAt' : -1, '_id' : -1 }")
+    List<QuizResult> findHistoryPage(String userId, Limit limit);
+    
+    @Query(value = "{ 'userId' : ?0, '$or' : [ { 'completedAt' : { '$lt' : ?1 } }, { 'completedAt' : ?1, '_id' : { '$lt' : ?2 } } ] }",
+            sort = "{ 'completedAt' : -1, '_id' : -1 }")
+    List<QuizResult> findHistoryPageAfter(String userId, LocalDateTime completedAt, ObjectId id, Limit limit);
     
     // Additional queries for enhanced admin functionality
     @Query(value = "{ 'userId' : ?0 }")
@@ -4,10 +4,12 @@ import Quiz.App.Quiz.App.entity.UserAnswer;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface UserAnswerRepository extends MongoRepository<UserAnswer, String> {
     List<UserAnswer> findByQuizResultId(String quizResultId);
+    List<UserAnswer> findByQuizResultIdIn(Collection<String> quizResultIds);
     void deleteByQuizResultId(String quizResultId);
 }
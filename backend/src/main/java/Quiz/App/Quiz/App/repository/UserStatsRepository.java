@@ -0,0 +1,9 @@
+package Quiz.App.Quiz.App.repository;
+
+import Quiz.App.Quiz.App.entity.UserStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserStatsRepository extends MongoRepository<UserStats, String> {
+}
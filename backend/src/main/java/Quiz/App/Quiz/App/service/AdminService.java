@@ -1,11 +1,18 @@
 package Quiz.App.Quiz.App.service;
 
+import Quiz.App.Quiz.App.dto.PurgeJobDto;
 import Quiz.App.Quiz.App.dto.QuestionRequest;
 import Quiz.App.Quiz.App.dto.QuizRequest;
 import Quiz.App.Quiz.App.dto.QuizResultResponse;
 import Quiz.App.Quiz.App.entity.*;
 import Quiz.App.Quiz.App.repository.*;
+import Quiz.App.Quiz.App.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +21,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,6 +45,57 @@ public class AdminService {
     @Autowired
     private MongoAggregationService mongoAggregationService;
     
+    @Autowired
+    private QuizCacheService quizCacheService;
+    
+    @Autowired
+    private SubmissionWriter submissionWriter;
+    
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+    
+    @Autowired
+    private UserStatsService userStatsService;
+    
+    @Autowired
+    private WindowedLeaderboard windowedLeaderboard;
+    
+    @Autowired
+    private QuizHistorySummaryService quizHistorySummaryService;
+    
+    @Autowired
+    private LeaderboardStatsCounters leaderboardStatsCounters;
+    
+    @Autowired
+    private LeaderboardResponseCache leaderboardResponseCache;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private RateLimiter rateLimiter;
+    
+    @Autowired
+    private MongoIndexManager mongoIndexManager;
+    
+    @Autowired
+    private ResultPurgeService resultPurgeService;
+    
+    @Autowired
+    private QuizTotalsService quizTotalsService;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
     // Quiz Management
     public Quiz createQuiz(QuizRequest request) {
         Quiz quiz = new Quiz();
@@ -45,30 +104,43 @@ public class AdminService {
         quiz.setDurationMinutes(request.getDurationMinutes());
         quiz.setDifficulty(request.getDifficulty());
         quiz.setTotalMarks(0);
+        quiz.setQuestionCount(0);
         quiz.setIsActive(true);
         
-        return quizRepository.save(quiz);
+        Quiz savedQuiz = quizRepository.save(quiz);
+        quizCacheService.invalidateCatalog();
+        return savedQuiz;
     }
     
     public Quiz updateQuiz(String id, QuizRequest request) {
-        Quiz quiz = quizRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Quiz not found"));
-        
-        quiz.setTitle(request.getTitle());
-        quiz.setDescription(request.getDescription());
-        quiz.setDurationMinutes(request.getDurationMinutes());
-        quiz.setDifficulty(request.getDifficulty());
-        
-        return quizRepository.save(quiz);
+        // Only the edited fields, so a concurrent question change to the totals isn't overwritten
+        Update update = new Update()
+                .set("title", request.getTitle())
+                .set("description", request.getDescription())
+                .set("durationMinutes", request.getDurationMinutes())
+                .set("difficulty", request.getDifficulty());
+        Quiz savedQuiz = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), Quiz.class);
+        if (savedQuiz == null) {
+            throw new RuntimeException("Quiz not found");
+        }
+        quizCacheService.invalidateQuiz(id);
+        return savedQuiz;
     }
     
+    /**
+     * Delete a quiz with its questions, results and answers.
+     * Returns the purge job when there are too many results to delete in the request.
+     */
     @Transactional
-    public void deleteQuiz(String id) {
+    public Optional<PurgeJobDto> deleteQuiz(String id) {
         Quiz quiz = quizRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Quiz not found"));
         
         questionRepository.deleteByQuizId(id);
         quizRepository.delete(quiz);
+        quizCacheService.invalidateQuiz(id);
+        return resultPurgeService.purgeQuiz(id);
     }
     
     public List<Quiz> getAllQuizzes() {
@@ -93,7 +165,8 @@ public class AdminService {
         Question savedQuestion = questionRepository.save(question);
         
         // Update total marks for the quiz
-        updateQuizTotalMarks(quiz.getId());
+        quizTotalsService.adjust(quiz.getId(), marksOf(savedQuestion), 1);
+        quizCacheService.invalidateQuiz(quiz.getId());
         
         return savedQuestion;
     }
@@ -101,6 +174,7 @@ public class AdminService {
     public Question updateQuestion(String id, QuestionRequest request) {
         Question question = questionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Question not found"));
+        int previousMarks = marksOf(question);
         
         question.setQuestionText(request.getQuestionText());
         question.setOptionA(request.getOptionA());
@@ -113,7 +187,8 @@ public class AdminService {
         Question savedQuestion = questionRepository.save(question);
         
         // Update total marks for the quiz
-        updateQuizTotalMarks(question.getQuizId()); // Use quiz ID instead of quiz object
+        quizTotalsService.adjust(question.getQuizId(), marksOf(savedQuestion) - previousMarks, 0);
+        quizCacheService.invalidateQuiz(question.getQuizId());
         
         return savedQuestion;
     }
@@ -126,22 +201,23 @@ public class AdminService {
         questionRepository.delete(question);
         
         // Update total marks for the quiz
-        updateQuizTotalMarks(quizId);
+        quizTotalsService.adjust(quizId, -marksOf(question), -1);
+        quizCacheService.invalidateQuiz(quizId);
     }
     
     public List<Question> getQuestionsByQuizId(String quizId) {
         return questionRepository.findByQuizId(quizId);
     }
     
-    private void updateQuizTotalMarks(String quizId) {
-        List<Question> questions = questionRepository.findByQuizId(quizId);
-        int totalMarks = questions.stream().mapToInt(Question::getMarks).sum();
-        
-        Quiz quiz = quizRepository.findById(quizId).orElse(null);
-        if (quiz != null) {
-            quiz.setTotalMarks(totalMarks);
-            quizRepository.save(quiz);
-        }
+    private static int marksOf(Question question) {
+        return question.getMarks() != null ? question.getMarks() : 0;
+    }
+    
+    /**
+     * Recompute every quiz's total marks and question count from its questions
+     */
+    public Map<String, Object> reconcileQuizTotals() {
+        return quizTotalsService.reconcile();
     }
     
     // Dashboard Stats
@@ -155,8 +231,9 @@ public class AdminService {
         // Additional stats using aggregation service
         stats.put("activeUsers", userRepository.countByRole(User.Role.USER));
         stats.put("adminUsers", userRepository.countByRole(User.Role.ADMIN));
-        stats.put("averageScore", mongoAggregationService.getAverageScore());
-        stats.put("highestScore", mongoAggregationService.getHighestScore());
+        MongoAggregationService.ScoreSummary scores = mongoAggregationService.getScoreSummary();
+        stats.put("averageScore", scores.averageScore());
+        stats.put("highestScore", scores.highestScore());
         
         return stats;
     }
@@ -164,6 +241,7 @@ public class AdminService {
     // Enhanced User Management
     public List<Map<String, Object>> getAllUsersWithStats() {
         List<User> users = userRepository.findAll();
+        Map<String, UserStats> statsByUser = userStatsService.getAllStats();
         return users.stream().map(user -> {
             Map<String, Object> userInfo = new HashMap<>();
             userInfo.put("id", user.getId());
@@ -172,15 +250,14 @@ public class AdminService {
             userInfo.put("role", user.getRole());
             userInfo.put("createdAt", user.getCreatedAt());
             
-            // Get user stats
-            Long totalAttempts = quizResultRepository.countByUserId(user.getId());
+            // Get user stats from the materialized user_stats document
+            UserStats userStats = statsByUser.get(user.getId());
+            long totalAttempts = userStats != null ? userStats.getAttempts() : 0;
             userInfo.put("totalAttempts", totalAttempts);
             
             if (totalAttempts > 0) {
-                Double avgScore = mongoAggregationService.getAverageScoreByUserId(user.getId());
-                Integer bestScore = mongoAggregationService.getBestScoreByUserId(user.getId());
-                userInfo.put("averageScore", avgScore != null ? avgScore : 0.0);
-                userInfo.put("bestScore", bestScore != null ? bestScore : 0);
+                userInfo.put("averageScore", userStats.getAverageScore());
+                userInfo.put("bestScore", userStats.getBestScore());
             } else {
                 userInfo.put("averageScore", 0.0);
                 userInfo.put("bestScore", 0);
@@ -192,28 +269,28 @@ public class AdminService {
     
     // User Activity Reports
     public List<Map<String, Object>> getUserActivityReport() {
-        List<Map<String, Object>> results = mongoAggregationService.findUserActivityReport();
+        List<MongoAggregationService.UserActivity> results = mongoAggregationService.findUserActivityReport();
         return results.stream().map(result -> {
             Map<String, Object> activity = new HashMap<>();
-            activity.put("username", result.get("userUsername"));
-            activity.put("totalAttempts", result.get("attemptCount"));
-            activity.put("totalScore", result.get("totalScore"));
-            activity.put("averageScore", result.get("averageScore"));
-            activity.put("lastAttempt", result.get("lastActivity"));
+            activity.put("username", result.username());
+            activity.put("totalAttempts", result.attemptCount());
+            activity.put("totalScore", result.totalScore());
+            activity.put("averageScore", result.averageScore());
+            activity.put("lastAttempt", result.lastActivity());
             return activity;
         }).collect(Collectors.toList());
     }
     
     // Quiz Performance Reports
     public List<Map<String, Object>> getQuizPerformanceReport() {
-        List<Map<String, Object>> results = mongoAggregationService.findQuizPerformanceReport();
+        List<MongoAggregationService.QuizPerformance> results = mongoAggregationService.findQuizPerformanceReport();
         return results.stream().map(result -> {
             Map<String, Object> performance = new HashMap<>();
-            performance.put("quizTitle", result.get("quizTitle"));
-            performance.put("totalAttempts", result.get("attemptCount"));
-            performance.put("averageScore", result.get("averageScore"));
-            performance.put("highestScore", result.get("maxScore"));
-            performance.put("lowestScore", result.get("minScore"));
+            performance.put("quizTitle", result.quizTitle());
+            performance.put("totalAttempts", result.attemptCount());
+            performance.put("averageScore", result.averageScore());
+            performance.put("highestScore", result.maxScore());
+            performance.put("lowestScore", result.minScore());
             performance.put("passRate", "N/A"); // Can be calculated if needed
             return performance;
         }).collect(Collectors.toList());
@@ -238,6 +315,25 @@ public class AdminService {
         }).collect(Collectors.toList());
     }
     
+    // Performance Metrics
+    public Map<String, Object> getPerformanceMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("quizCache", quizCacheService.getStats());
+        metrics.put("submissionWriter", submissionWriter.getStats());
+        metrics.put("leaderboardIndex", leaderboardIndex.getStats());
+        metrics.put("windowedLeaderboard", windowedLeaderboard.getStats());
+        metrics.put("leaderboardStats", leaderboardStatsCounters.getStats());
+        metrics.put("leaderboardResponseCache", leaderboardResponseCache.getStats());
+        metrics.put("jwtClaimsCache", jwtUtil.getStats());
+        metrics.put("principalCache", userDetailsService.getStats());
+        metrics.put("tokenRevocation", tokenRevocationService.getStats());
+        metrics.put("passwordHashing", passwordHashingService.getStats());
+        metrics.put("rateLimit", rateLimiter.getStats());
+        metrics.put("indexManager", mongoIndexManager.getStats());
+        metrics.put("purge", resultPurgeService.getStats());
+        return metrics;
+    }
+    
     // User Management
     public List<User> getAllUsers() {
         return userRepository.findAll();
@@ -248,21 +344,26 @@ public class AdminService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setRole(User.Role.valueOf(role.toUpperCase()));
         userRepository.save(user);
+        userDetailsService.invalidate(user.getUsername());
+        tokenRevocationService.revokeUser(userId);
     }
     
+    /**
+     * Delete a user with their results and answers.
+     * Returns the purge job when there are too many results to delete in the request.
+     */
     @Transactional
-    public void deleteUser(String userId) {
+    public Optional<PurgeJobDto> deleteUser(String userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         // Delete user's quiz results and answers
-        List<QuizResult> results = quizResultRepository.findByUserId(userId);
-        for (QuizResult result : results) {
-            userAnswerRepository.deleteByQuizResultId(result.getId());
-        }
-        quizResultRepository.deleteByUserId(userId);
+        Optional<PurgeJobDto> purge = resultPurgeService.purgeUser(userId);
         
         userRepository.delete(user);
+        userDetailsService.invalidate(user.getUsername());
+        tokenRevocationService.revokeUser(userId);
+        return purge;
     }
     
     // Results Management
@@ -281,5 +382,11 @@ public class AdminService {
         
         userAnswerRepository.deleteByQuizResultId(resultId);
         quizResultRepository.delete(result);
+        leaderboardIndex.removeResult(resultId);
+        windowedLeaderboard.removeResult(resultId);
+        userStatsService.recompute(result.getUserId());
+        quizHistorySummaryService.recompute(result.getUserId(), result.getQuizId());
+        leaderboardStatsCounters.invalidate();
+        leaderboardResponseCache.invalidateAll();
     }
 }
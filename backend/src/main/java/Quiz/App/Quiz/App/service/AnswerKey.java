@@ -0,0 +1,144 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.Question;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, precompiled answer key of a quiz.
+ *
+ * Questions are mapped to dense indexes in question order, with correct
+ * options and marks kept in primitive arrays, so scoring a submission
+ * needs no database read and allocates a single result object.
+ * Built by QuizCacheService and rebuilt whenever an admin edit
+ * invalidates the quiz.
+ */
+public final class AnswerKey {
+
+    private static final byte NO_OPTION = -1;
+
+    private final String[] questionIds;
+    private final Map<String, Integer> indexById;
+    private final byte[] correctOptions;
+    private final int[] marks;
+    private final int totalMarks;
+
+    private AnswerKey(String[] questionIds, Map<String, Integer> indexById,
+                      byte[] correctOptions, int[] marks, int totalMarks) {
+        this.questionIds = questionIds;
+        this.indexById = indexById;
+        this.correctOptions = correctOptions;
+        this.marks = marks;
+        this.totalMarks = totalMarks;
+    }
+
+    public static AnswerKey compile(List<Question> questions) {
+        int size = questions.size();
+        String[] questionIds = new String[size];
+        Map<String, Integer> indexById = new HashMap<>(size * 2);
+        byte[] correctOptions = new byte[size];
+        int[] marks = new int[size];
+        int totalMarks = 0;
+
+        for (int i = 0; i < size; i++) {
+            Question question = questions.get(i);
+            questionIds[i] = question.getId();
+            indexById.put(question.getId(), i);
+            correctOptions[i] = optionIndex(question.getCorrectAnswer());
+            marks[i] = question.getMarks() != null ? question.getMarks() : 0;
+            totalMarks += marks[i];
+        }
+
+        return new AnswerKey(questionIds, Map.copyOf(indexById), correctOptions, marks, totalMarks);
+    }
+
+    /**
+     * Score submitted answers (questionId -> A, B, C or D)
+     */
+    public Score score(Map<String, String> answers) {
+        int size = questionIds.length;
+        boolean[] correct = new boolean[size];
+        int score = 0;
+        int correctAnswers = 0;
+
+        if (answers != null && !answers.isEmpty()) {
+            for (int i = 0; i < size; i++) {
+                byte selected = optionIndex(answers.get(questionIds[i]));
+                if (selected != NO_OPTION && selected == correctOptions[i]) {
+                    correct[i] = true;
+                    score += marks[i];
+                    correctAnswers++;
+                }
+            }
+        }
+
+        return new Score(correct, score, correctAnswers, size - correctAnswers);
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    /**
+     * Dense index of a question, or -1 if it is not part of this quiz
+     */
+    public int indexOf(String questionId) {
+        Integer index = indexById.get(questionId);
+        return index != null ? index : -1;
+    }
+
+    public String questionId(int index) {
+        return questionIds[index];
+    }
+
+    public int marks(int index) {
+        return marks[index];
+    }
+
+    public int getTotalMarks() {
+        return totalMarks;
+    }
+
+    private static byte optionIndex(String answer) {
+        if (answer == null || answer.length() != 1) {
+            return NO_OPTION;
+        }
+        int option = answer.charAt(0) - 'A';
+        return option >= 0 && option < 4 ? (byte) option : NO_OPTION;
+    }
+
+    /**
+     * Outcome of scoring one submission against the key
+     */
+    public static final class Score {
+        private final boolean[] correct;
+        private final int score;
+        private final int correctAnswers;
+        private final int wrongAnswers;
+
+        private Score(boolean[] correct, int score, int correctAnswers, int wrongAnswers) {
+            this.correct = correct;
+            this.score = score;
+            this.correctAnswers = correctAnswers;
+            this.wrongAnswers = wrongAnswers;
+        }
+
+        public boolean isCorrect(int index) {
+            return correct[index];
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getCorrectAnswers() {
+            return correctAnswers;
+        }
+
+        public int getWrongAnswers() {
+            return wrongAnswers;
+        }
+    }
+}
@@ -6,16 +6,26 @@ import Quiz.App.Quiz.App.dto.RegisterRequest;
 import Quiz.App.Quiz.App.entity.User;
 import Quiz.App.Quiz.App.repository.UserRepository;
 import Quiz.App.Quiz.App.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class AuthService {
     
+    // Name of the violated index in an E11000 error, e.g. "index: email dup key: ..."
+    private static final Pattern DUPLICATE_INDEX = Pattern.compile("index: (\\S+)");
+    
     @Autowired
     private UserRepository userRepository;
     
@@ -28,22 +38,26 @@ public class AuthService {
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
     public JwtResponse register(RegisterRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Username is already taken!");
-        }
-        
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email is already in use!");
-        }
-        
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setRole(User.Role.USER);
         
-        User savedUser = userRepository.save(user);
+        // Single insert; the unique indexes on username and email reject duplicates
+        User savedUser;
+        try {
+            savedUser = userRepository.insert(user);
+        } catch (DuplicateKeyException e) {
+            if ("email".equals(duplicateField(e))) {
+                throw new RuntimeException("Email is already in use!");
+            }
+            throw new RuntimeException("Username is already taken!");
+        }
         
         String jwt = jwtUtil.generateToken(savedUser);
         
@@ -62,4 +76,26 @@ public class AuthService {
         return new JwtResponse(jwt, user.getId(), user.getUsername(), 
                               user.getEmail(), user.getRole().name());
     }
+    
+    /**
+     * Which unique field a failed user insert collided on, "username" or "email"
+     */
+    public static String duplicateField(DuplicateKeyException e) {
+        Matcher matcher = DUPLICATE_INDEX.matcher(String.valueOf(e.getMessage()));
+        if (matcher.find() && matcher.group(1).contains("email")) {
+            return "email";
+        }
+        return "username";
+    }
+    
+    public void logout(String token) {
+        // Only a valid token can be revoked; anything else is rejected by the filter anyway
+        Claims claims = jwtUtil.parseToken(token);
+        // Tokens issued before token ids were added can't be revoked individually
+        if (claims.getId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "This token can't be revoked and stays valid until it expires; sign in again for a revocable one");
+        }
+        tokenRevocationService.revokeToken(claims);
+    }
 }
@@ -0,0 +1,37 @@
+package Quiz.App.Quiz.App.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+
+/**
+ * Records which one-off backfills of materialized collections have completed.
+ *
+ * A marker is written only after a backfill succeeds, so one that failed
+ * partway, or never ran, runs again on the next startup. Whether the target
+ * collection is empty says nothing about that: live writes can create
+ * documents before a backfill has run.
+ */
+@Service
+public class BackfillMarkerService {
+
+    private static final String COLLECTION = "backfill_markers";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public boolean isCompleted(String name) {
+        return mongoTemplate.exists(Query.query(Criteria.where("_id").is(name)), COLLECTION);
+    }
+
+    public void markCompleted(String name, long durationMs) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(name)),
+                new Update().set("completed_at", new Date()).set("duration_ms", durationMs),
+                COLLECTION);
+    }
+}
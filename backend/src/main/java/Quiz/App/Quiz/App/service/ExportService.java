@@ -0,0 +1,191 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.QuizResult;
+import Quiz.App.Quiz.App.entity.User;
+import Quiz.App.Quiz.App.util.CsvWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams quiz results and users out as NDJSON or CSV.
+ *
+ * Documents are read from a MongoDB cursor one batch at a time and written
+ * as they arrive, so memory stays flat however large the collection is.
+ * Filters run in the query, and rows come out in storage order because
+ * sorting a filtered export could need an in-memory sort. Passwords and
+ * embedded answers are never read.
+ */
+@Service
+public class ExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${export.cursor-batch-size:1000}")
+    private int cursorBatchSize;
+
+    /**
+     * Write results completed in [from, to), optionally for one quiz; null bounds are open
+     */
+    public long exportResults(OutputStream out, Format format, LocalDateTime from, LocalDateTime to, String quizId)
+            throws IOException {
+        Criteria criteria = new Criteria();
+        if (quizId != null) {
+            criteria.and("quizId").is(quizId);
+        }
+        addRange(criteria, "completedAt", from, to);
+        Query query = Query.query(criteria).cursorBatchSize(cursorBatchSize);
+        query.fields().exclude("answers");
+
+        try (Stream<QuizResult> results = mongoTemplate.stream(query, QuizResult.class)) {
+            return format == Format.CSV ? writeResultsCsv(out, results.iterator()) : writeResultsNdjson(out, results.iterator());
+        }
+    }
+
+    /**
+     * Write users created in [from, to); null bounds are open
+     */
+    public long exportUsers(OutputStream out, Format format, LocalDateTime from, LocalDateTime to) throws IOException {
+        Criteria criteria = new Criteria();
+        addRange(criteria, "createdAt", from, to);
+        Query query = Query.query(criteria).cursorBatchSize(cursorBatchSize);
+        query.fields().exclude("password");
+
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            return format == Format.CSV ? writeUsersCsv(out, users.iterator()) : writeUsersNdjson(out, users.iterator());
+        }
+    }
+
+    private long writeResultsNdjson(OutputStream out, Iterator<QuizResult> results) throws IOException {
+        long rows = 0;
+        try (JsonGenerator json = newGenerator(out)) {
+            while (results.hasNext()) {
+                QuizResult result = results.next();
+                json.writeStartObject();
+                json.writeStringField("id", result.getId());
+                json.writeStringField("userId", result.getUserId());
+                json.writeStringField("username", result.getUserUsername());
+                json.writeStringField("quizId", result.getQuizId());
+                json.writeStringField("quizTitle", result.getQuizTitle());
+                writeNumber(json, "score", result.getScore());
+                writeNumber(json, "quizTotalMarks", result.getQuizTotalMarks());
+                writeNumber(json, "totalQuestions", result.getTotalQuestions());
+                writeNumber(json, "correctAnswers", result.getCorrectAnswers());
+                writeNumber(json, "wrongAnswers", result.getWrongAnswers());
+                writeNumber(json, "timeTakenSeconds", result.getTimeTakenSeconds());
+                json.writeStringField("completedAt", format(result.getCompletedAt()));
+                json.writeEndObject();
+                json.writeRaw('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private long writeResultsCsv(OutputStream out, Iterator<QuizResult> results) throws IOException {
+        CsvWriter csv = newCsvWriter(out);
+        csv.writeRow("id", "userId", "username", "quizId", "quizTitle", "score", "quizTotalMarks",
+                "totalQuestions", "correctAnswers", "wrongAnswers", "timeTakenSeconds", "completedAt");
+        long rows = 0;
+        while (results.hasNext()) {
+            QuizResult result = results.next();
+            csv.writeRow(result.getId(), result.getUserId(), result.getUserUsername(), result.getQuizId(),
+                    result.getQuizTitle(), result.getScore(), result.getQuizTotalMarks(), result.getTotalQuestions(),
+                    result.getCorrectAnswers(), result.getWrongAnswers(), result.getTimeTakenSeconds(),
+                    format(result.getCompletedAt()));
+            rows++;
+        }
+        csv.flush();
+        return rows;
+    }
+
+    private long writeUsersNdjson(OutputStream out, Iterator<User> users) throws IOException {
+        long rows = 0;
+        try (JsonGenerator json = newGenerator(out)) {
+            while (users.hasNext()) {
+                User user = users.next();
+                json.writeStartObject();
+                json.writeStringField("id", user.getId());
+                json.writeStringField("username", user.getUsername());
+                json.writeStringField("email", user.getEmail());
+                json.writeStringField("role", user.getRole() != null ? user.getRole().name() : null);
+                json.writeStringField("createdAt", format(user.getCreatedAt()));
+                json.writeEndObject();
+                json.writeRaw('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private long writeUsersCsv(OutputStream out, Iterator<User> users) throws IOException {
+        CsvWriter csv = newCsvWriter(out);
+        csv.writeRow("id", "username", "email", "role", "createdAt");
+        long rows = 0;
+        while (users.hasNext()) {
+            User user = users.next();
+            csv.writeRow(user.getId(), user.getUsername(), user.getEmail(),
+                    user.getRole() != null ? user.getRole().name() : null, format(user.getCreatedAt()));
+            rows++;
+        }
+        csv.flush();
+        return rows;
+    }
+
+    private static void addRange(Criteria criteria, String field, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return;
+        }
+        Criteria range = criteria.and(field);
+        if (from != null) {
+            range.gte(from);
+        }
+        if (to != null) {
+            range.lt(to);
+        }
+    }
+
+    private JsonGenerator newGenerator(OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        // Lines are ended by hand; the response stream stays open for the caller to close
+        json.setRootValueSeparator(null);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return json;
+    }
+
+    private static CsvWriter newCsvWriter(OutputStream out) {
+        return new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    private static void writeNumber(JsonGenerator json, String field, Integer value) throws IOException {
+        if (value != null) {
+            json.writeNumberField(field, value);
+        } else {
+            json.writeNullField(field);
+        }
+    }
+
+    private static String format(LocalDateTime time) {
+        return time != null ? time.toString() : null;
+    }
+}
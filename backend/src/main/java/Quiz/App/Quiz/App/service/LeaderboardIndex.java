@@ -0,0 +1,277 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.QuizResult;
+import Quiz.App.Quiz.App.util.OrderStatisticTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory ranked index of every quiz result, globally and per quiz.
+ *
+ * Built from quiz_results in the background at startup and updated on
+ * every submission and deletion. Top-K, exact rank and "neighbours
+ * around me" queries run in O(log n) (plus K) instead of scanning a
+ * leaderboard page. Until the first build finishes, isReady() is false
+ * and callers fall back to MongoDB.
+ */
+@Service
+public class LeaderboardIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardIndex.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${leaderboard.index.enabled:true}")
+    private boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OrderStatisticTree<RankedResult> global = new OrderStatisticTree<>(RankedResult.RANKING);
+    private final Map<String, OrderStatisticTree<RankedResult>> byQuiz = new HashMap<>();
+    private final Map<String, RankedResult> byResultId = new HashMap<>();
+    private final Map<String, Set<RankedResult>> byUserId = new HashMap<>();
+    private final Map<String, String> userIdByUsername = new HashMap<>();
+
+    // Results deleted while the initial build is still streaming must not come back
+    private final Set<String> removedDuringBuild = new HashSet<>();
+
+    private volatile boolean building;
+    private volatile boolean ready;
+    private volatile long buildMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(this::build, "leaderboard-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    private void build() {
+        long start = System.currentTimeMillis();
+        building = true;
+        Query query = new Query();
+        query.fields().exclude("answers");
+
+        try (Stream<QuizResult> results = mongoTemplate.stream(query, QuizResult.class)) {
+            results.forEach(result -> {
+                lock.writeLock().lock();
+                try {
+                    if (!removedDuringBuild.contains(result.getId())) {
+                        add(RankedResult.of(result));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+
+            lock.writeLock().lock();
+            try {
+                removedDuringBuild.clear();
+                building = false;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            buildMillis = System.currentTimeMillis() - start;
+            logger.info("Leaderboard index built with {} results in {} ms", byResultId.size(), buildMillis);
+        } catch (Exception e) {
+            building = false;
+            logger.error("Leaderboard index build failed, leaderboards will query MongoDB: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Add a newly submitted result
+     */
+    public void record(QuizResult result) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            add(RankedResult.of(result));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeResult(String resultId) {
+        lock.writeLock().lock();
+        try {
+            removeById(resultId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(String userId) {
+        lock.writeLock().lock();
+        try {
+            Set<RankedResult> entries = byUserId.get(userId);
+            if (entries != null) {
+                for (RankedResult entry : new ArrayList<>(entries)) {
+                    removeById(entry.getResultId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<RankedResult> topGlobal(int limit) {
+        lock.readLock().lock();
+        try {
+            return global.range(0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<RankedResult> topForQuiz(String quizId, int limit) {
+        lock.readLock().lock();
+        try {
+            OrderStatisticTree<RankedResult> tree = byQuiz.get(quizId);
+            return tree != null ? tree.range(0, limit) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 1-based global rank of a result, or 0 if it is not indexed
+     */
+    public int globalRank(RankedResult entry) {
+        lock.readLock().lock();
+        try {
+            return global.indexOf(entry) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Global leaderboard window of context entries on each side of a 1-based rank
+     */
+    public List<RankedResult> around(int rank, int context) {
+        lock.readLock().lock();
+        try {
+            return global.range(rank - 1 - context, rank + context);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<RankedResult> getUserEntries(String userId) {
+        lock.readLock().lock();
+        try {
+            Set<RankedResult> entries = byUserId.get(userId);
+            return entries != null ? new ArrayList<>(entries) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<RankedResult> getUserEntriesByUsername(String username) {
+        lock.readLock().lock();
+        try {
+            String userId = userIdByUsername.get(username);
+            Set<RankedResult> entries = userId != null ? byUserId.get(userId) : null;
+            return entries != null ? new ArrayList<>(entries) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int attemptCount(String userId) {
+        lock.readLock().lock();
+        try {
+            Set<RankedResult> entries = byUserId.get(userId);
+            return entries != null ? entries.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("enabled", enabled);
+            stats.put("ready", ready);
+            stats.put("results", global.size());
+            stats.put("quizzes", byQuiz.size());
+            stats.put("users", byUserId.size());
+            stats.put("buildMillis", buildMillis);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(RankedResult entry) {
+        if (entry.getResultId() == null || byResultId.containsKey(entry.getResultId())) {
+            return;
+        }
+        byResultId.put(entry.getResultId(), entry);
+        global.add(entry);
+        byQuiz.computeIfAbsent(entry.getQuizId(), id -> new OrderStatisticTree<>(RankedResult.RANKING)).add(entry);
+        byUserId.computeIfAbsent(entry.getUserId(), id -> new HashSet<>()).add(entry);
+        if (entry.getUsername() != null) {
+            userIdByUsername.put(entry.getUsername(), entry.getUserId());
+        }
+    }
+
+    private void removeById(String resultId) {
+        if (building) {
+            removedDuringBuild.add(resultId);
+        }
+        RankedResult entry = byResultId.remove(resultId);
+        if (entry == null) {
+            return;
+        }
+        global.remove(entry);
+
+        OrderStatisticTree<RankedResult> quizTree = byQuiz.get(entry.getQuizId());
+        if (quizTree != null) {
+            quizTree.remove(entry);
+            if (quizTree.isEmpty()) {
+                byQuiz.remove(entry.getQuizId());
+            }
+        }
+
+        Set<RankedResult> userEntries = byUserId.get(entry.getUserId());
+        if (userEntries != null) {
+            userEntries.remove(entry);
+            if (userEntries.isEmpty()) {
+                byUserId.remove(entry.getUserId());
+                if (entry.getUsername() != null) {
+                    userIdByUsername.remove(entry.getUsername());
+                }
+            }
+        }
+    }
+}
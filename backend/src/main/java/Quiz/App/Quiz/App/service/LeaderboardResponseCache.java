@@ -0,0 +1,241 @@
+package Quiz.App.Quiz.App.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of public leaderboard responses, keyed by endpoint and parameters.
+ *
+ * Only one computation per key runs at a time: concurrent misses wait for
+ * the caller that is already loading instead of running the same query.
+ * Once an entry is older than the TTL it is still served for the stale
+ * window while a single background refresh replaces it. Admin deletions
+ * invalidate everything, and a load that started before an invalidation is
+ * returned to its caller but not cached.
+ *
+ * Cached values are shared between callers and must not be mutated.
+ */
+@Service
+public class LeaderboardResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardResponseCache.class);
+
+    @Value("${leaderboard.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${leaderboard.cache.ttl-ms:5000}")
+    private long ttlMs;
+
+    // How long past the TTL an entry may still be served while it is refreshed
+    @Value("${leaderboard.cache.stale-ms:30000}")
+    private long staleMs;
+
+    @Value("${leaderboard.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${leaderboard.cache.refresh-threads:2}")
+    private int refreshThreads;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Keys from least to most recently loaded, so eviction takes the head instead of scanning.
+    // Guarded by itself; only loads and invalidations take the lock, hits never do.
+    private final LinkedHashMap<String, Boolean> loadOrder = new LinkedHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private ThreadPoolExecutor refresher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder discardedLoads = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        refresher = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxEntries)), runnable -> {
+                    Thread thread = new Thread(runnable, "leaderboard-cache-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Cached response for the key, computing it with the loader on a miss
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Entry cached = entries.get(key);
+        if (cached != null) {
+            long age = System.nanoTime() - cached.loadedAtNanos;
+            if (age <= TimeUnit.MILLISECONDS.toNanos(ttlMs)) {
+                hits.increment();
+                return (T) cached.value;
+            }
+            if (age <= TimeUnit.MILLISECONDS.toNanos(ttlMs + staleMs)) {
+                staleHits.increment();
+                refreshInBackground(key, loader);
+                return (T) cached.value;
+            }
+        }
+
+        misses.increment();
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, loading);
+        if (existing != null) {
+            coalesced.increment();
+            return (T) await(existing);
+        }
+        try {
+            Object value = load(key, loader);
+            loading.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, loading);
+        }
+    }
+
+    /**
+     * Drop every cached response, e.g. after results or users were deleted
+     */
+    public void invalidateAll() {
+        synchronized (loadOrder) {
+            version.incrementAndGet();
+            entries.clear();
+            loadOrder.clear();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long staleCount = staleHits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + staleCount + missCount;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMs", ttlMs);
+        stats.put("staleMs", staleMs);
+        stats.put("hits", hitCount);
+        stats.put("staleHits", staleCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total > 0 ? (double) (hitCount + staleCount) / total : 0.0);
+        stats.put("coalesced", coalesced.sum());
+        stats.put("refreshes", refreshes.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("discardedLoads", discardedLoads.sum());
+        return stats;
+    }
+
+    private void refreshInBackground(String key, Supplier<?> loader) {
+        CompletableFuture<Object> refreshing = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, refreshing) != null) {
+            // Already being loaded or refreshed
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    refreshing.complete(load(key, loader));
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    refreshing.completeExceptionally(e);
+                    refreshFailures.increment();
+                    logger.warn("Leaderboard cache refresh failed for {}: {}", key, e.getMessage());
+                } finally {
+                    inFlight.remove(key, refreshing);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.completeExceptionally(e);
+            refreshFailures.increment();
+            inFlight.remove(key, refreshing);
+        }
+    }
+
+    private Object load(String key, Supplier<?> loader) {
+        long loadVersion = version.get();
+        Object value = loader.get();
+        synchronized (loadOrder) {
+            // Only cache what we computed if nothing was invalidated meanwhile
+            if (version.get() != loadVersion) {
+                discardedLoads.increment();
+                return value;
+            }
+            entries.put(key, new Entry(value));
+            loadOrder.remove(key);
+            loadOrder.put(key, Boolean.TRUE);
+            evictIfNeeded();
+        }
+        return value;
+    }
+
+    private static Object await(CompletableFuture<Object> loading) {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Caller holds the loadOrder lock
+    private void evictIfNeeded() {
+        // Keys include request parameters, so bound them by dropping the least recently loaded entries
+        Iterator<String> eldest = loadOrder.keySet().iterator();
+        while (loadOrder.size() > maxEntries && eldest.hasNext()) {
+            entries.remove(eldest.next());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long loadedAtNanos = System.nanoTime();
+
+        private Entry(Object value) {
+            this.value = value;
+        }
+    }
+}
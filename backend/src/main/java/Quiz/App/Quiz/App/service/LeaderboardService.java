@@ -3,74 +3,80 @@ package Quiz.App.Quiz.App.service;
 import Quiz.App.Quiz.App.dto.LeaderboardEntryDto;
 import Quiz.App.Quiz.App.dto.LeaderboardStatsDto;
 import Quiz.App.Quiz.App.entity.QuizResult;
+import Quiz.App.Quiz.App.entity.UserStats;
 import Quiz.App.Quiz.App.repository.QuizResultRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class LeaderboardService {
 
+    // Upper bound for any leaderboard page, also used for ranking lookups
+    private static final int MAX_LIMIT = 1000;
+
     @Autowired
     private QuizResultRepository quizResultRepository;
     
     @Autowired
     private MongoAggregationService mongoAggregationService;
+    
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+    
+    @Autowired
+    private UserStatsService userStatsService;
+    
+    @Autowired
+    private WindowedLeaderboard windowedLeaderboard;
+    
+    @Autowired
+    private LeaderboardStatsCounters leaderboardStatsCounters;
 
     public List<LeaderboardEntryDto> getGlobalLeaderboard(int limit) {
-        List<QuizResult> results = quizResultRepository.findTopByOrderByScoreDesc(limit);
+        // Served from the in-memory index once it is built
+        if (leaderboardIndex.isReady()) {
+            return toEntries(leaderboardIndex.topGlobal(clamp(limit)));
+        }
         
-        return results.stream()
-                .map(this::convertToLeaderboardEntry)
-                .collect(Collectors.toList());
+        List<QuizResult> results = quizResultRepository.findTopByOrderByScoreDesc(topK(limit));
+        
+        return toEntries(ranked(results));
     }
 
     public List<LeaderboardEntryDto> getQuizLeaderboard(String quizId, int limit) {
-        List<QuizResult> results = quizResultRepository.findTopByQuizIdOrderByScoreDesc(quizId, limit);
+        if (leaderboardIndex.isReady()) {
+            return toEntries(leaderboardIndex.topForQuiz(quizId, clamp(limit)));
+        }
         
-        return results.stream()
-                .map(this::convertToLeaderboardEntry)
-                .collect(Collectors.toList());
+        List<QuizResult> results = quizResultRepository.findTopByQuizIdOrderByScoreDesc(quizId, topK(limit));
+        
+        return toEntries(ranked(results));
     }
 
     public List<LeaderboardEntryDto> getTopPerformers(int limit) {
-        List<Map<String, Object>> results = mongoAggregationService.findTopPerformersByAverageScore(limit);
+        List<MongoAggregationService.UserActivity> results = mongoAggregationService.findTopPerformersByAverageScore(clamp(limit));
         
         List<LeaderboardEntryDto> leaderboard = new ArrayList<>();
-        for (Map<String, Object> result : results) {
+        for (MongoAggregationService.UserActivity result : results) {
             LeaderboardEntryDto entry = new LeaderboardEntryDto();
+            entry.setUserId(result.userId());
+            entry.setUsername(result.username());
             
-            // Handle compound _id from MongoDB aggregation
-            Object idObj = result.get("_id");
-            if (idObj instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> compoundId = (Map<String, Object>) idObj;
-                entry.setUserId((String) compoundId.get("userId"));
-                entry.setUsername((String) compoundId.get("userUsername"));
-            } else {
-                // Fallback for simple string ID
-                entry.setUserId((String) idObj);
-                entry.setUsername((String) result.get("userUsername"));
-            }
-            
-            // Handle average score (could be null or NaN)
-            Double avgScore = (Double) result.get("averageScore");
-            entry.setScore(avgScore != null && !avgScore.isNaN() ? avgScore.intValue() : 0);
-            
-            // Handle total attempts
-            Integer totalAttempts = (Integer) result.get("attemptCount");
-            entry.setTotalAttempts(totalAttempts != null ? totalAttempts : 0);
-            
-            // Handle percentage (could be null or NaN)
-            Double percentage = avgScore != null ? (avgScore / 100.0) * 100 : 0.0;
-            entry.setPercentage(percentage != null && !percentage.isNaN() ? percentage : 0.0);
+            // Handle average score (could be NaN)
+            double avgScore = result.averageScore();
+            entry.setScore(!Double.isNaN(avgScore) ? (int) avgScore : 0);
+            entry.setTotalAttempts((int) result.attemptCount());
+            entry.setPercentage(!Double.isNaN(avgScore) ? avgScore : 0.0);
             
             // Set other fields to null/default since this is aggregate data
             entry.setQuizId(null);
@@ -86,30 +92,24 @@ public class LeaderboardService {
     }
 
     public List<LeaderboardEntryDto> getWeeklyLeaderboard(int limit) {
-        LocalDateTime weekStart = LocalDateTime.now().minus(7, ChronoUnit.DAYS);
-        List<QuizResult> results = quizResultRepository.findTopByCompletedAtAfterOrderByScoreDesc(weekStart, limit);
-        
-        return results.stream()
-                .map(this::convertToLeaderboardEntry)
-                .collect(Collectors.toList());
+        return getRecentTopScores(7, limit);
     }
 
     public List<LeaderboardEntryDto> getMonthlyLeaderboard(int limit) {
-        LocalDateTime monthStart = LocalDateTime.now().minus(30, ChronoUnit.DAYS);
-        List<QuizResult> results = quizResultRepository.findTopByCompletedAtAfterOrderByScoreDesc(monthStart, limit);
-        
-        return results.stream()
-                .map(this::convertToLeaderboardEntry)
-                .collect(Collectors.toList());
+        return getRecentTopScores(30, limit);
     }
 
     public List<LeaderboardEntryDto> getRecentTopScores(int days, int limit) {
-        LocalDateTime fromDate = LocalDateTime.now().minus(days, ChronoUnit.DAYS);
-        List<QuizResult> results = quizResultRepository.findTopByCompletedAtAfterOrderByScoreDesc(fromDate, limit);
+        // Merged from the daily buckets when they can answer exactly
+        Optional<List<RankedResult>> windowed = windowedLeaderboard.top(days, clamp(limit));
+        if (windowed.isPresent()) {
+            return toEntries(windowed.get());
+        }
         
-        return results.stream()
-                .map(this::convertToLeaderboardEntry)
-                .collect(Collectors.toList());
+        LocalDateTime fromDate = windowedLeaderboard.windowStart(days);
+        List<QuizResult> results = quizResultRepository.findTopByCompletedAtAfterOrderByScoreDesc(fromDate, topK(limit));
+        
+        return toEntries(ranked(results));
     }
 
     public List<LeaderboardEntryDto> getRecentLeaderboard(int limit) {
@@ -117,8 +117,13 @@ public class LeaderboardService {
     }
 
     public List<LeaderboardEntryDto> getMyRanking(String userId, int context) {
+        // Exact ranks for every attempt, including users below the top page
+        if (leaderboardIndex.isReady()) {
+            return toRankedEntries(leaderboardIndex.getUserEntries(userId));
+        }
+        
         // Get global leaderboard to determine rankings
-        List<LeaderboardEntryDto> globalLeaderboard = getGlobalLeaderboard(1000);
+        List<LeaderboardEntryDto> globalLeaderboard = getGlobalLeaderboard(MAX_LIMIT);
         
         // Find user in global leaderboard and return only their entries
         List<LeaderboardEntryDto> userEntries = new ArrayList<>();
@@ -135,8 +140,12 @@ public class LeaderboardService {
     }
     
     public LeaderboardEntryDto getMyPersonalRanking(String username) {
+        if (leaderboardIndex.isReady()) {
+            return getPersonalRankingFromIndex(username);
+        }
+        
         // Get global leaderboard to determine user's highest ranking
-        List<LeaderboardEntryDto> globalLeaderboard = getGlobalLeaderboard(1000);
+        List<LeaderboardEntryDto> globalLeaderboard = getGlobalLeaderboard(MAX_LIMIT);
         
         // Find user's best ranking and aggregate their stats
         LeaderboardEntryDto bestEntry = null;
@@ -176,7 +185,11 @@ public class LeaderboardService {
     
     public List<LeaderboardEntryDto> getMyRankingByUsername(String username, int context) {
         // Return only the logged-in user's entries, not context
-        List<LeaderboardEntryDto> globalLeaderboard = getGlobalLeaderboard(1000);
+        if (leaderboardIndex.isReady()) {
+            return toRankedEntries(leaderboardIndex.getUserEntriesByUsername(username));
+        }
+        
+        List<LeaderboardEntryDto> globalLeaderboard = getGlobalLeaderboard(MAX_LIMIT);
         List<LeaderboardEntryDto> userEntries = new ArrayList<>();
         
         for (int i = 0; i < globalLeaderboard.size(); i++) {
@@ -190,45 +203,140 @@ public class LeaderboardService {
         return userEntries;
     }
 
-    public LeaderboardStatsDto getLeaderboardStats() {
-        LeaderboardStatsDto stats = new LeaderboardStatsDto();
+    public List<LeaderboardEntryDto> getRankingNeighbours(String username, int context) {
+        // Entries ranked just above and below the user's best attempt
+        if (!leaderboardIndex.isReady()) {
+            return getMyRankingByUsername(username, context);
+        }
         
-        // Use MongoAggregationService for stats calculation
-        stats.setTotalParticipants(mongoAggregationService.countDistinctUsers());
-        stats.setTotalAttempts(mongoAggregationService.countTotalAttempts());
+        int bestRank = 0;
+        for (RankedResult entry : leaderboardIndex.getUserEntriesByUsername(username)) {
+            int rank = leaderboardIndex.globalRank(entry);
+            if (rank > 0 && (bestRank == 0 || rank < bestRank)) {
+                bestRank = rank;
+            }
+        }
+        if (bestRank == 0) {
+            return new ArrayList<>();
+        }
         
-        Double avgScore = mongoAggregationService.getAverageScore();
-        stats.setAverageScore(avgScore != null ? avgScore : 0.0);
+        int window = clampContext(context);
+        List<RankedResult> neighbours = leaderboardIndex.around(bestRank, window);
+        List<LeaderboardEntryDto> entries = toEntries(neighbours);
+        int firstRank = Math.max(1, bestRank - window);
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).setRank(firstRank + i);
+        }
+        return entries;
+    }
+    
+    private LeaderboardEntryDto getPersonalRankingFromIndex(String username) {
+        List<RankedResult> userEntries = leaderboardIndex.getUserEntriesByUsername(username);
+        if (userEntries.isEmpty()) {
+            return null;
+        }
         
-        Integer highestScore = mongoAggregationService.getHighestScore();
-        stats.setHighestScore(highestScore != null ? highestScore : 0);
+        // Best ranked attempt, with attempts and average score over all attempts
+        RankedResult best = null;
+        int bestRank = Integer.MAX_VALUE;
+        int totalScore = 0;
+        for (RankedResult entry : userEntries) {
+            totalScore += entry.getScore();
+            int rank = leaderboardIndex.globalRank(entry);
+            if (rank > 0 && rank < bestRank) {
+                bestRank = rank;
+                best = entry;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
         
-        // Get most active user
-        List<Map<String, Object>> mostActiveUsers = mongoAggregationService.findMostActiveUser();
-        if (!mostActiveUsers.isEmpty()) {
-            Map<String, Object> mostActiveUser = mostActiveUsers.get(0);
-            
-            // Handle compound _id from MongoDB aggregation
-            Object idObj = mostActiveUser.get("_id");
-            if (idObj instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> compoundId = (Map<String, Object>) idObj;
-                stats.setMostActiveUser((String) compoundId.get("userUsername"));
-            } else {
-                stats.setMostActiveUser((String) mostActiveUser.get("userUsername"));
+        LeaderboardEntryDto bestEntry = toEntries(List.of(best)).get(0);
+        bestEntry.setRank(bestRank);
+        bestEntry.setTotalAttempts(userEntries.size());
+        bestEntry.setScore(totalScore / userEntries.size());
+        return bestEntry;
+    }
+    
+    private List<LeaderboardEntryDto> toRankedEntries(List<RankedResult> results) {
+        List<LeaderboardEntryDto> entries = toEntries(results);
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).setRank(leaderboardIndex.globalRank(results.get(i)));
+        }
+        entries.sort(Comparator.comparing(LeaderboardEntryDto::getRank));
+        return entries;
+    }
+
+    public LeaderboardStatsDto getLeaderboardStats() {
+        LeaderboardStatsDto stats = new LeaderboardStatsDto();
+        
+        // Served from the in-memory counters, or aggregated while they are seeding
+        Optional<LeaderboardStatsCounters.Snapshot> snapshot = leaderboardStatsCounters.snapshot();
+        if (snapshot.isPresent()) {
+            LeaderboardStatsCounters.Snapshot counters = snapshot.get();
+            stats.setTotalParticipants(counters.participants());
+            stats.setTotalAttempts(counters.attempts());
+            stats.setAverageScore(counters.averageScore());
+            stats.setHighestScore(counters.highestScore());
+            if (counters.mostActiveUser() != null) {
+                stats.setMostActiveUser(counters.mostActiveUser());
+                stats.setMostActiveUserAttempts((int) counters.mostActiveUserAttempts());
             }
-            
-            Integer attemptCount = (Integer) mostActiveUser.get("attemptCount");
-            stats.setMostActiveUserAttempts(attemptCount != null ? attemptCount : 0);
+            return stats;
         }
         
+        MongoAggregationService.LeaderboardTotals totals = mongoAggregationService.getLeaderboardTotals(null);
+        stats.setTotalParticipants(mongoAggregationService.countParticipants());
+        stats.setTotalAttempts(totals.attempts());
+        stats.setAverageScore(totals.averageScore());
+        stats.setHighestScore(totals.highestScore());
+        userStatsService.findMostActive().ifPresent(mostActive -> {
+            stats.setMostActiveUser(mostActive.getUsername());
+            stats.setMostActiveUserAttempts((int) mostActive.getAttempts());
+        });
+        
         return stats;
     }
 
-    private LeaderboardEntryDto convertToLeaderboardEntry(QuizResult result) {
+    /**
+     * Page size actually served for a requested limit; callers key caches on it
+     */
+    public static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Neighbour window actually served for a requested context
+     */
+    public static int clampContext(int context) {
+        return Math.max(0, Math.min(context, MAX_LIMIT));
+    }
+
+    private Limit topK(int limit) {
+        return Limit.of(clamp(limit));
+    }
+
+    private List<RankedResult> ranked(List<QuizResult> results) {
+        return results.stream()
+                .map(RankedResult::of)
+                .collect(Collectors.toList());
+    }
+
+    private List<LeaderboardEntryDto> toEntries(List<RankedResult> results) {
+        // Attempt counts for every user on the page in one query
+        Map<String, UserStats> statsByUser = userStatsService.getStats(
+                results.stream().map(RankedResult::getUserId).collect(Collectors.toSet()));
+        
+        return results.stream()
+                .map(result -> toLeaderboardEntry(result, statsByUser.get(result.getUserId())))
+                .collect(Collectors.toList());
+    }
+
+    private LeaderboardEntryDto toLeaderboardEntry(RankedResult result, UserStats userStats) {
         LeaderboardEntryDto entry = new LeaderboardEntryDto();
         entry.setUserId(result.getUserId()); // Use denormalized userId field
-        entry.setUsername(result.getUserUsername()); // Use denormalized username field
+        entry.setUsername(result.getUsername()); // Use denormalized username field
         entry.setQuizId(result.getQuizId()); // Use denormalized quizId field
         entry.setQuizTitle(result.getQuizTitle()); // Use denormalized quiz title field
         entry.setScore(result.getScore());
@@ -254,9 +362,12 @@ public class LeaderboardService {
             entry.setPercentage(0.0);
         }
         
-        // Get total attempts for this user (this is expensive but needed for accuracy)
-        Long totalAttempts = quizResultRepository.countByUserId(result.getUserId());
-        entry.setTotalAttempts(totalAttempts != null ? totalAttempts.intValue() : 0);
+        // Total attempts come from user_stats; the index covers users not backfilled yet
+        if (userStats != null) {
+            entry.setTotalAttempts((int) userStats.getAttempts());
+        } else {
+            entry.setTotalAttempts(leaderboardIndex.attemptCount(result.getUserId()));
+        }
         
         return entry;
     }
@@ -0,0 +1,291 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.QuizResult;
+import Quiz.App.Quiz.App.util.HyperLogLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global leaderboard statistics kept as in-memory counters.
+ *
+ * The counters are seeded from one $group of the scalar totals over the
+ * results completed before a cutoff, plus a streamed $group of user ids into
+ * a HyperLogLog for distinct participants; the most active user comes from
+ * the top of user_stats. The cutoff lies a margin before the seed starts, so
+ * every result completed before it is already stored, even one that waited in
+ * the write-behind queue. Results completed at or after the cutoff are counted
+ * both from live submissions and from a stream of the stored ones, read once
+ * the margin has passed, and deduplicated by id: each is counted exactly once.
+ * Deletions can't be subtracted from the HyperLogLog, so they reseed instead;
+ * until a seed finishes, snapshot() is empty and callers aggregate instead.
+ * Seeds run one at a time on a single thread, and reseeds requested while one
+ * is running are merged into a single follow-up seed, so a burst of deletes
+ * costs at most two seeding passes.
+ */
+@Service
+public class LeaderboardStatsCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardStatsCounters.class);
+
+    // 16 KB of registers, about 0.8% standard error
+    private static final int HLL_PRECISION = 14;
+
+    @Autowired
+    private MongoAggregationService mongoAggregationService;
+
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Value("${leaderboard.stats.enabled:true}")
+    private boolean enabled;
+
+    // Longest time from a result's completion to its write, e.g. through the write-behind queue
+    @Value("${leaderboard.stats.seed-margin-ms:5000}")
+    private long seedMarginMs;
+
+    private volatile Counters current;
+    private ExecutorService seeder;
+    // Set when a reseed is requested, cleared when a seed picks it up
+    private final AtomicBoolean reseedRequested = new AtomicBoolean();
+
+    private final LongAdder served = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder reseeds = new LongAdder();
+    private final LongAdder reseedRequests = new LongAdder();
+
+    public record Snapshot(long attempts, long totalScore, int highestScore, long participants,
+                           String mostActiveUser, long mostActiveUserAttempts) {
+
+        public double averageScore() {
+            return attempts > 0 ? (double) totalScore / attempts : 0.0;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        seeder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-stats-seed");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        seeder.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        if (enabled) {
+            reseed();
+        }
+    }
+
+    /**
+     * Drop the counters and rebuild them in the background, e.g. after results were deleted
+     */
+    public void invalidate() {
+        if (enabled) {
+            reseed();
+        }
+    }
+
+    public void record(QuizResult result) {
+        Counters counters = current;
+        if (counters == null || result.getCompletedAt() == null
+                || result.getCompletedAt().isBefore(counters.cutoff)) {
+            return;
+        }
+        if (countOnce(counters, result) && result.getUserId() != null) {
+            updateMostActive(counters, result);
+        }
+    }
+
+    public Optional<Snapshot> snapshot() {
+        Counters counters = current;
+        if (counters == null || !counters.ready) {
+            fallbacks.increment();
+            return Optional.empty();
+        }
+        long participants;
+        synchronized (counters.participants) {
+            participants = counters.participants.estimate();
+        }
+        MostActive mostActive = counters.mostActive;
+        served.increment();
+        return Optional.of(new Snapshot(
+                counters.attempts.sum(),
+                counters.totalScore.sum(),
+                counters.highestScore.get(),
+                participants,
+                mostActive != null ? mostActive.username : null,
+                mostActive != null ? mostActive.attempts : 0));
+    }
+
+    public Map<String, Object> getStats() {
+        Counters counters = current;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", counters != null && counters.ready);
+        stats.put("served", served.sum());
+        stats.put("fallbacks", fallbacks.sum());
+        stats.put("reseeds", reseeds.sum());
+        stats.put("reseedRequests", reseedRequests.sum());
+        return stats;
+    }
+
+    private void reseed() {
+        reseedRequests.increment();
+        // The counters are stale from now on; snapshots fall back until the next seed finishes
+        current = null;
+        if (reseedRequested.compareAndSet(false, true)) {
+            seeder.execute(this::runSeeds);
+        }
+    }
+
+    private void runSeeds() {
+        // Requests that arrive while a seed runs leave the flag set for one more pass
+        while (reseedRequested.getAndSet(false)) {
+            long start = System.currentTimeMillis();
+            Counters counters = new Counters(LocalDateTime.now().minus(Duration.ofMillis(seedMarginMs)));
+            current = counters;
+            reseeds.increment();
+            if (!seed(counters, start)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false if the seeding thread was interrupted
+     */
+    private boolean seed(Counters counters, long start) {
+        try {
+            MongoAggregationService.LeaderboardTotals totals =
+                    mongoAggregationService.getLeaderboardTotals(counters.cutoff);
+            HyperLogLog seeded = new HyperLogLog(HLL_PRECISION);
+            mongoAggregationService.forEachUserId(counters.cutoff, seeded::offer);
+
+            counters.attempts.add(totals.attempts());
+            counters.totalScore.add(totals.totalScore());
+            counters.highestScore.accumulateAndGet(totals.highestScore(), Math::max);
+            synchronized (counters.participants) {
+                counters.participants.merge(seeded);
+            }
+            userStatsService.findMostActive().ifPresent(stats -> offerMostActive(counters,
+                    new MostActive(stats.getUserId(), stats.getUsername(), stats.getAttempts())));
+
+            // Results completed before this seed started are stored once the margin has passed
+            long wait = start + seedMarginMs - System.currentTimeMillis();
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+            mongoAggregationService.forEachResultCompletedSince(counters.cutoff,
+                    result -> countOnce(counters, result));
+            // Anything recorded from now on was not stored when the stream read the collection
+            counters.overlap = null;
+
+            // A newer reseed may have replaced these counters while this one was running
+            if (current == counters) {
+                counters.ready = true;
+                logger.info("Leaderboard stats seeded from {} results in {} ms",
+                        counters.attempts.sum(), System.currentTimeMillis() - start);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            logger.error("Leaderboard stats seed failed, stats will be aggregated per request: {}", e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Add a result completed at or after the cutoff, unless the seed's stream or
+     * a live submission already counted it
+     *
+     * @return whether it was counted now
+     */
+    private static boolean countOnce(Counters counters, QuizResult result) {
+        Set<String> overlap = counters.overlap;
+        if (overlap != null && result.getId() != null && !overlap.add(result.getId())) {
+            return false;
+        }
+        int score = result.getScore() != null ? result.getScore() : 0;
+        counters.attempts.increment();
+        counters.totalScore.add(score);
+        counters.highestScore.accumulateAndGet(score, Math::max);
+        if (result.getUserId() != null) {
+            synchronized (counters.participants) {
+                counters.participants.offer(result.getUserId());
+            }
+        }
+        return true;
+    }
+
+    private void updateMostActive(Counters counters, QuizResult result) {
+        if (leaderboardIndex.isReady()) {
+            // The index already holds this result, so its count is the user's total
+            offerMostActive(counters, new MostActive(result.getUserId(), result.getUserUsername(),
+                    leaderboardIndex.attemptCount(result.getUserId())));
+        } else {
+            MostActive mostActive = counters.mostActive;
+            if (mostActive != null && mostActive.userId.equals(result.getUserId())) {
+                offerMostActive(counters, new MostActive(mostActive.userId, mostActive.username, mostActive.attempts + 1));
+            }
+        }
+    }
+
+    private static void offerMostActive(Counters counters, MostActive candidate) {
+        synchronized (counters) {
+            if (counters.mostActive == null || candidate.attempts > counters.mostActive.attempts) {
+                counters.mostActive = candidate;
+            }
+        }
+    }
+
+    private static final class Counters {
+        // Results completed before the cutoff come from the seed's totals, the rest from
+        // record() and the seed's stream of stored results
+        private final LocalDateTime cutoff;
+        // Ids counted at or after the cutoff, until the seed's stream has finished
+        private volatile Set<String> overlap = ConcurrentHashMap.newKeySet();
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder totalScore = new LongAdder();
+        private final AtomicInteger highestScore = new AtomicInteger();
+        private final HyperLogLog participants = new HyperLogLog(HLL_PRECISION);
+        private volatile MostActive mostActive;
+        private volatile boolean ready;
+
+        private Counters(LocalDateTime cutoff) {
+            this.cutoff = cutoff;
+        }
+    }
+
+    private record MostActive(String userId, String username, long attempts) {
+    }
+}
@@ -1,21 +1,33 @@
 package Quiz.App.Quiz.App.service;
 
+import Quiz.App.Quiz.App.dto.QuizSummaryDto;
 import Quiz.App.Quiz.App.entity.QuizResult;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
 import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
 import org.springframework.data.mongodb.core.aggregation.GroupOperation;
-import org.springframework.data.mongodb.core.aggregation.MatchOperation;
-import org.springframework.data.mongodb.core.aggregation.SortOperation;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Service to handle complex MongoDB aggregation queries
@@ -28,224 +40,235 @@ public class MongoAggregationService {
     private MongoTemplate mongoTemplate;
 
     /**
-     * Get quiz statistics for user history
-     * Equivalent to the complex JPA query that was removed
+     * Get the quiz catalog with question counts in a single round trip
      */
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> getQuizStatisticsByUserId(String userId) {
-        GroupOperation groupByQuiz = Aggregation.group("quizId", "quizTitle", "quizTotalMarks")
-                .count().as("attemptCount")
-                .max("score").as("bestScore")
-                .avg("score").as("averageScore")
-                .min("completedAt").as("firstAttempt")
-                .max("completedAt").as("lastAttempt");
-
-        MatchOperation matchUser = Aggregation.match(Criteria.where("userId").is(userId));
-        SortOperation sortByLastAttempt = Aggregation.sort(Sort.Direction.DESC, "lastAttempt");
-
-        Aggregation aggregation = Aggregation.newAggregation(
-                matchUser,
-                groupByQuiz,
-                sortByLastAttempt
-        );
-
-        AggregationResults<Map> results = mongoTemplate.aggregate(
-                aggregation, "quiz_results", Map.class);
-
-        return (List<Map<String, Object>>) (List<?>) results.getMappedResults();
+    public List<QuizSummaryDto> getQuizCatalog(boolean activeOnly) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (activeOnly) {
+            operations.add(Aggregation.match(Criteria.where("is_active").is(true)));
+        }
+        // question_count is maintained on the quiz, so no join with questions is needed
+        operations.add(Aggregation.project("title", "description", "difficulty")
+                .and("duration_minutes").as("durationMinutes")
+                .and("total_marks").as("totalMarks")
+                .and("created_at").as("createdAt")
+                .and("is_active").as("isActive")
+                .and(ConditionalOperators.ifNull("question_count").then(0))
+                .as("questionCount"));
+
+        AggregationResults<QuizSummaryDto> results = mongoTemplate.aggregate(
+                Aggregation.newAggregation(operations), "quizzes", QuizSummaryDto.class);
+
+        return results.getMappedResults();
     }
 
+    // Quiz result pipelines are typed against QuizResult, so property names such as
+    // userId are mapped to the stored field names (user_id) instead of being taken literally
+
+    private static final GroupOperation GROUP_BY_USER = Aggregation.group("userId", "userUsername")
+            .count().as("attemptCount")
+            .sum("score").as("totalScore")
+            .avg("score").as("averageScore")
+            .max("completedAt").as("lastActivity");
+
+    private static final ProjectionOperation PROJECT_USER_ACTIVITY = Aggregation.project(
+                    "attemptCount", "totalScore", "averageScore", "lastActivity")
+            .and("_id.userId").as("userId")
+            .and("_id.userUsername").as("username")
+            .andExclude("_id");
+
+    private static final TypedAggregation<QuizResult> USER_ACTIVITY = Aggregation.newAggregation(QuizResult.class,
+            GROUP_BY_USER,
+            PROJECT_USER_ACTIVITY,
+            Aggregation.sort(Sort.Direction.DESC, "attemptCount"));
+
+    private static final TypedAggregation<QuizResult> QUIZ_PERFORMANCE = Aggregation.newAggregation(QuizResult.class,
+            Aggregation.group("quizId", "quizTitle")
+                    .count().as("attemptCount")
+                    .avg("score").as("averageScore")
+                    .max("score").as("maxScore")
+                    .min("score").as("minScore"),
+            Aggregation.project("attemptCount", "averageScore", "maxScore", "minScore")
+                    .and("_id.quizId").as("quizId")
+                    .and("_id.quizTitle").as("quizTitle")
+                    .andExclude("_id"),
+            Aggregation.sort(Sort.Direction.DESC, "attemptCount"));
+
+    private static final TypedAggregation<QuizResult> SCORE_SUMMARY = Aggregation.newAggregation(QuizResult.class,
+            Aggregation.group()
+                    .count().as("attempts")
+                    .avg("score").as("averageScore")
+                    .max("score").as("highestScore"),
+            Aggregation.project("attempts", "averageScore", "highestScore").andExclude("_id"));
+
+    // Projections are read straight from the result documents. Going through the
+    // mapping converter allocates more per row than the raw Map results did.
+
     /**
-     * Count distinct users who have taken quizzes
+     * Attempts and scores of one user across all quizzes
      */
-    public Long countDistinctUsers() {
-        GroupOperation groupByUser = Aggregation.group("userId");
-        
-        Aggregation aggregation = Aggregation.newAggregation(groupByUser);
-        
-        AggregationResults<Map> results = mongoTemplate.aggregate(
-                aggregation, "quiz_results", Map.class);
-        
-        return (long) results.getMappedResults().size();
+    public record UserActivity(String userId, String username, long attemptCount, long totalScore,
+                               double averageScore, LocalDateTime lastActivity) {
+
+        public static UserActivity from(Document document) {
+            return new UserActivity(document.getString("userId"), document.getString("username"),
+                    longValue(document, "attemptCount"), longValue(document, "totalScore"),
+                    doubleValue(document, "averageScore"), dateValue(document, "lastActivity"));
+        }
     }
 
     /**
-     * Get average score across all quiz results
+     * Attempts and score spread of one quiz
      */
-    public Double getAverageScore() {
-        GroupOperation averageScore = Aggregation.group()
-                .avg("score").as("averageScore");
-
-        Aggregation aggregation = Aggregation.newAggregation(averageScore);
-
-        AggregationResults<Map> results = mongoTemplate.aggregate(
-                aggregation, "quiz_results", Map.class);
+    public record QuizPerformance(String quizId, String quizTitle, long attemptCount, double averageScore,
+                                  int maxScore, int minScore) {
 
-        List<Map> mappedResults = results.getMappedResults();
-        if (!mappedResults.isEmpty()) {
-            return (Double) mappedResults.get(0).get("averageScore");
+        public static QuizPerformance from(Document document) {
+            return new QuizPerformance(document.getString("quizId"), document.getString("quizTitle"),
+                    longValue(document, "attemptCount"), doubleValue(document, "averageScore"),
+                    (int) longValue(document, "maxScore"), (int) longValue(document, "minScore"));
         }
-        return 0.0;
     }
 
     /**
-     * Get highest score across all quiz results
+     * Attempt count, average and highest score over all results
      */
-    public Integer getHighestScore() {
-        GroupOperation maxScore = Aggregation.group()
-                .max("score").as("highestScore");
+    public record ScoreSummary(long attempts, double averageScore, int highestScore) {
 
-        Aggregation aggregation = Aggregation.newAggregation(maxScore);
-
-        AggregationResults<Map> results = mongoTemplate.aggregate(
-                aggregation, "quiz_results", Map.class);
-
-        List<Map> mappedResults = results.getMappedResults();
-        if (!mappedResults.isEmpty()) {
-            return (Integer) mappedResults.get(0).get("highestScore");
+        public static ScoreSummary from(Document document) {
+            return new ScoreSummary(longValue(document, "attempts"), doubleValue(document, "averageScore"),
+                    (int) longValue(document, "highestScore"));
         }
-        return 0;
     }
 
     /**
-     * Find most active user
+     * Scalar totals over all results, optionally only those completed before a cutoff
      */
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> findMostActiveUser() {
-        GroupOperation groupByUser = Aggregation.group("userId", "userUsername")
-                .count().as("attemptCount");
-        
-        SortOperation sortByAttempts = Aggregation.sort(Sort.Direction.DESC, "attemptCount");
-        
-        Aggregation aggregation = Aggregation.newAggregation(
-                groupByUser,
-                sortByAttempts,
-                Aggregation.limit(1)
-        );
-
-        AggregationResults<Map> results = mongoTemplate.aggregate(
-                aggregation, "quiz_results", Map.class);
+    public record LeaderboardTotals(long attempts, long totalScore, int highestScore) {
 
-        return (List<Map<String, Object>>) (List<?>) results.getMappedResults();
+        public double averageScore() {
+            return attempts > 0 ? (double) totalScore / attempts : 0.0;
+        }
     }
 
     /**
-     * Find top performers by average score
+     * Attempts, total and highest score in one $group. Per-user figures are left to
+     * forEachUserId and user_stats: grouping every user here would be held in memory.
      */
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> findTopPerformersByAverageScore(int limit) {
-        GroupOperation groupByUser = Aggregation.group("userId", "userUsername")
-                .avg("score").as("averageScore")
-                .count().as("attemptCount");
-
-        MatchOperation matchMinAttempts = Aggregation.match(Criteria.where("attemptCount").gte(1));
-        SortOperation sortByAverage = Aggregation.sort(Sort.Direction.DESC, "averageScore");
-
-        Aggregation aggregation = Aggregation.newAggregation(
-                groupByUser,
-                matchMinAttempts,
-                sortByAverage,
-                Aggregation.limit(limit)
-        );
-
-        AggregationResults<Map> results = mongoTemplate.aggregate(
-                aggregation, "quiz_results", Map.class);
+    public LeaderboardTotals getLeaderboardTotals(LocalDateTime completedBefore) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (completedBefore != null) {
+            operations.add(Aggregation.match(Criteria.where("completedAt").lt(completedBefore)));
+        }
+        operations.add(Aggregation.group()
+                .count().as("attempts")
+                .sum("score").as("totalScore")
+                .max("score").as("highestScore"));
 
-        return (List<Map<String, Object>>) (List<?>) results.getMappedResults();
+        Document totals = mongoTemplate.aggregate(
+                Aggregation.newAggregation(QuizResult.class, operations), Document.class).getUniqueMappedResult();
+        if (totals == null) {
+            return new LeaderboardTotals(0, 0, 0);
+        }
+        return new LeaderboardTotals(
+                longValue(totals, "attempts"),
+                longValue(totals, "totalScore"),
+                (int) longValue(totals, "highestScore"));
     }
 
     /**
-     * Get average score by user ID
+     * Stream each distinct user id once, without collecting them into a list.
+     * The $group may spill to disk, so it works however many users there are.
+     *
+     * @param completedBefore only results completed before this, or null for all
      */
-    public Double getAverageScoreByUserId(String userId) {
-        MatchOperation matchUser = Aggregation.match(Criteria.where("userId").is(userId));
-        GroupOperation averageScore = Aggregation.group()
-                .avg("score").as("averageScore");
-
-        Aggregation aggregation = Aggregation.newAggregation(matchUser, averageScore);
-
-        AggregationResults<Map> results = mongoTemplate.aggregate(
-                aggregation, "quiz_results", Map.class);
-
-        List<Map> mappedResults = results.getMappedResults();
-        if (!mappedResults.isEmpty()) {
-            return (Double) mappedResults.get(0).get("averageScore");
+    public void forEachUserId(LocalDateTime completedBefore, Consumer<String> consumer) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (completedBefore != null) {
+            operations.add(Aggregation.match(Criteria.where("completedAt").lt(completedBefore)));
+        }
+        operations.add(Aggregation.group("userId"));
+        TypedAggregation<QuizResult> aggregation = Aggregation.newAggregation(QuizResult.class, operations)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        try (Stream<Document> userIds = mongoTemplate.aggregateStream(aggregation, Document.class)) {
+            userIds.map(document -> document.getString("_id"))
+                    .filter(Objects::nonNull)
+                    .forEach(consumer);
         }
-        return 0.0;
     }
 
     /**
-     * Get best score by user ID
+     * Exact number of distinct users with a result, counted from the streamed ids
      */
-    public Integer getBestScoreByUserId(String userId) {
-        MatchOperation matchUser = Aggregation.match(Criteria.where("userId").is(userId));
-        GroupOperation maxScore = Aggregation.group()
-                .max("score").as("bestScore");
+    public long countParticipants() {
+        LongAdder participants = new LongAdder();
+        forEachUserId(null, userId -> participants.increment());
+        return participants.sum();
+    }
 
-        Aggregation aggregation = Aggregation.newAggregation(matchUser, maxScore);
+    /**
+     * Stream the results completed at or after a time, with only the fields totals need
+     */
+    public void forEachResultCompletedSince(LocalDateTime from, Consumer<QuizResult> consumer) {
+        Query query = Query.query(Criteria.where("completedAt").gte(from));
+        query.fields().include("userId").include("userUsername").include("score").include("completedAt");
+        try (Stream<QuizResult> results = mongoTemplate.stream(query, QuizResult.class)) {
+            results.forEach(consumer);
+        }
+    }
 
-        AggregationResults<Map> results = mongoTemplate.aggregate(
-                aggregation, "quiz_results", Map.class);
+    public ScoreSummary getScoreSummary() {
+        Document summary = mongoTemplate.aggregate(SCORE_SUMMARY, Document.class).getUniqueMappedResult();
+        return summary != null ? ScoreSummary.from(summary) : new ScoreSummary(0, 0.0, 0);
+    }
 
-        List<Map> mappedResults = results.getMappedResults();
-        if (!mappedResults.isEmpty()) {
-            return (Integer) mappedResults.get(0).get("bestScore");
-        }
-        return 0;
+    /**
+     * Find top performers by average score
+     */
+    public List<UserActivity> findTopPerformersByAverageScore(int limit) {
+        TypedAggregation<QuizResult> aggregation = Aggregation.newAggregation(QuizResult.class,
+                GROUP_BY_USER,
+                Aggregation.sort(Sort.Direction.DESC, "averageScore"),
+                Aggregation.limit(limit),
+                PROJECT_USER_ACTIVITY);
+
+        return read(mongoTemplate.aggregate(aggregation, Document.class), UserActivity::from);
     }
 
     /**
      * Get user activity report
      */
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> findUserActivityReport() {
-        GroupOperation groupByUser = Aggregation.group("userId", "userUsername")
-                .count().as("attemptCount")
-                .sum("score").as("totalScore")
-                .avg("score").as("averageScore")
-                .max("completedAt").as("lastActivity");
-
-        SortOperation sortByAttempts = Aggregation.sort(Sort.Direction.DESC, "attemptCount");
-
-        Aggregation aggregation = Aggregation.newAggregation(
-                groupByUser,
-                sortByAttempts
-        );
-
-        AggregationResults<Map> results = mongoTemplate.aggregate(
-                aggregation, "quiz_results", Map.class);
-
-        return (List<Map<String, Object>>) (List<?>) results.getMappedResults();
+    public List<UserActivity> findUserActivityReport() {
+        return read(mongoTemplate.aggregate(USER_ACTIVITY, Document.class), UserActivity::from);
     }
 
     /**
      * Get quiz performance report
      */
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> findQuizPerformanceReport() {
-        GroupOperation groupByQuiz = Aggregation.group("quizId", "quizTitle")
-                .count().as("attemptCount")
-                .avg("score").as("averageScore")
-                .max("score").as("maxScore")
-                .min("score").as("minScore");
-
-        SortOperation sortByAttempts = Aggregation.sort(Sort.Direction.DESC, "attemptCount");
-
-        Aggregation aggregation = Aggregation.newAggregation(
-                groupByQuiz,
-                sortByAttempts
-        );
+    public List<QuizPerformance> findQuizPerformanceReport() {
+        return read(mongoTemplate.aggregate(QUIZ_PERFORMANCE, Document.class), QuizPerformance::from);
+    }
+    
+    private static <T> List<T> read(AggregationResults<Document> results, Function<Document, T> mapper) {
+        List<T> mapped = new ArrayList<>(results.getMappedResults().size());
+        for (Document document : results.getMappedResults()) {
+            mapped.add(mapper.apply(document));
+        }
+        return mapped;
+    }
 
-        AggregationResults<Map> results = mongoTemplate.aggregate(
-                aggregation, "quiz_results", Map.class);
+    private static long longValue(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
 
-        return (List<Map<String, Object>>) (List<?>) results.getMappedResults();
+    private static double doubleValue(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
     }
-    
-    /**
-     * Count total quiz attempts
-     */
-    public Long countTotalAttempts() {
-        return mongoTemplate.count(new Query(), "quiz_results");
+
+    private static LocalDateTime dateValue(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Date ? LocalDateTime.ofInstant(((Date) value).toInstant(), ZoneId.systemDefault()) : null;
     }
-}
\ No newline at end of file
+}
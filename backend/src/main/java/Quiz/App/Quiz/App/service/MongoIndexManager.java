@@ -0,0 +1,214 @@
+package Quiz.App.Quiz.App.service;
+
+import com.mongodb.client.MongoCollection;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Declares the indexes behind every repository query on quiz_results,
+ * questions and user_answers, and reconciles them in the background after
+ * startup, so building an index on a large collection never holds up boot.
+ *
+ * A declared index that is missing is created. One that exists under the
+ * same name with different keys is dropped and rebuilt, and an index with
+ * the same keys under another name (e.g. one created by hand or by an older
+ * release) is replaced, since MongoDB refuses to hold both. Declared indexes
+ * are plain, so an existing index that is unique, TTL, partial, sparse or
+ * collated is never dropped: it is kept and reported as a conflict to be
+ * resolved by hand. Indexes that aren't declared here are left alone.
+ */
+@Service
+public class MongoIndexManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    // Options that change what an index enforces or which documents it holds
+    private static final Set<String> SIGNIFICANT_OPTIONS = Set.of(
+            "unique", "sparse", "partialFilterExpression", "expireAfterSeconds", "collation");
+
+    public static final List<ManagedIndex> INDEXES = List.of(
+            // QuestionRepository: findByQuizId, findByQuizIdIn, deleteByQuizId
+            new ManagedIndex("questions", "quiz_id_asc", new Document("quiz_id", 1)),
+            // UserAnswerRepository: findByQuizResultId, findByQuizResultIdIn, deleteByQuizResultId
+            new ManagedIndex("user_answers", "quiz_result_id_asc", new Document("quiz_result_id", 1)),
+            // Leaderboard top-K queries: global, per quiz and per time window.
+            // The time window index also serves findByCompletedAtAfterOrderByCompletedAtDesc.
+            new ManagedIndex("quiz_results", "score_desc", new Document("score", -1)),
+            new ManagedIndex("quiz_results", "quiz_id_score_desc",
+                    new Document("quiz_id", 1).append("score", -1)),
+            new ManagedIndex("quiz_results", "completed_at_score_desc",
+                    new Document("completed_at", 1).append("score", -1)),
+            // Everything looked up by user: history pages, findByUserId, countByUserId, deleteByUserId
+            new ManagedIndex("quiz_results", "user_id_completed_at_desc",
+                    new Document("user_id", 1).append("completed_at", -1).append("_id", -1))
+    );
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${mongodb.index-manager.enabled:true}")
+    private boolean enabled;
+
+    private volatile Map<String, Object> lastRun = Map.of();
+    private volatile boolean running;
+    private Thread reconciler;
+
+    // Queries work without the indexes meanwhile, only slower
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        reconciler = new Thread(() -> {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                logger.warn("Index reconciliation failed: {}", e.getMessage());
+            }
+        }, "mongo-index-reconcile");
+        reconciler.setDaemon(true);
+        reconciler.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconciler != null) {
+            reconciler.interrupt();
+        }
+    }
+
+    /**
+     * Bring the declared indexes in line with the database
+     */
+    public synchronized Map<String, Object> reconcile() {
+        running = true;
+        try {
+            return reconcileAll();
+        } finally {
+            running = false;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>(lastRun);
+        stats.put("enabled", enabled);
+        stats.put("running", running);
+        return stats;
+    }
+
+    private Map<String, Object> reconcileAll() {
+        long startedAt = System.currentTimeMillis();
+        int created = 0;
+        int rebuilt = 0;
+        int unchanged = 0;
+        int conflicts = 0;
+        int failed = 0;
+
+        for (ManagedIndex index : INDEXES) {
+            try {
+                switch (reconcile(index)) {
+                    case CREATED -> created++;
+                    case REBUILT -> rebuilt++;
+                    case UNCHANGED -> unchanged++;
+                    case CONFLICT -> conflicts++;
+                }
+            } catch (RuntimeException e) {
+                // Queries still work without the index, so don't keep the application from starting
+                failed++;
+                logger.warn("Could not reconcile index {} on {}: {}", index.name(), index.collection(), e.getMessage());
+            }
+        }
+
+        Map<String, Object> run = new HashMap<>();
+        run.put("managed", INDEXES.size());
+        run.put("created", created);
+        run.put("rebuilt", rebuilt);
+        run.put("unchanged", unchanged);
+        run.put("conflicts", conflicts);
+        run.put("failed", failed);
+        run.put("durationMs", System.currentTimeMillis() - startedAt);
+        lastRun = run;
+        logger.info("Reconciled {} indexes: {} created, {} rebuilt, {} unchanged, {} conflicts, {} failed",
+                INDEXES.size(), created, rebuilt, unchanged, conflicts, failed);
+        return run;
+    }
+
+    private Outcome reconcile(ManagedIndex index) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(index.collection());
+        // Decide on every clashing index before dropping any of them
+        List<Document> clashing = new ArrayList<>();
+        for (Document existing : collection.listIndexes()) {
+            boolean sameName = index.name().equals(existing.getString("name"));
+            boolean sameKeys = sameKeys(index.keys(), existing.get("key", Document.class));
+            if (!sameName && !sameKeys) {
+                continue;
+            }
+            if (hasSignificantOptions(existing)) {
+                logger.warn("Keeping index {} on {} instead of {} {}: it has options the declared index doesn't, {}",
+                        existing.getString("name"), index.collection(), index.name(), index.keys().toJson(), existing.toJson());
+                return Outcome.CONFLICT;
+            }
+            if (sameName && sameKeys) {
+                return Outcome.UNCHANGED;
+            }
+            clashing.add(existing);
+        }
+
+        for (Document existing : clashing) {
+            String name = existing.getString("name");
+            logger.info("Dropping index {} on {} in favour of {} {}", name, index.collection(), index.name(), index.keys().toJson());
+            collection.dropIndex(name);
+        }
+        mongoTemplate.indexOps(index.collection()).createIndex(new CompoundIndexDefinition(index.keys()).named(index.name()));
+        return clashing.isEmpty() ? Outcome.CREATED : Outcome.REBUILT;
+    }
+
+    private static boolean hasSignificantOptions(Document existing) {
+        for (String option : SIGNIFICANT_OPTIONS) {
+            Object value = existing.get(option);
+            if (value != null && !Boolean.FALSE.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Key order matters for compound indexes, and the server may return 1 as 1.0
+    private static boolean sameKeys(Document declared, Document existing) {
+        if (existing == null || declared.size() != existing.size()) {
+            return false;
+        }
+        List<Map.Entry<String, Object>> a = new ArrayList<>(declared.entrySet());
+        List<Map.Entry<String, Object>> b = new ArrayList<>(existing.entrySet());
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).getKey().equals(b.get(i).getKey())
+                    || !(b.get(i).getValue() instanceof Number direction)
+                    || ((Number) a.get(i).getValue()).intValue() != direction.intValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private enum Outcome { CREATED, REBUILT, UNCHANGED, CONFLICT }
+
+    /**
+     * An index the application relies on, with keys in field order
+     */
+    public record ManagedIndex(String collection, String name, Document keys) {
+    }
+}
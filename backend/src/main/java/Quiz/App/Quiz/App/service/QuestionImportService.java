@@ -0,0 +1,300 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.dto.QuestionImportResultDto;
+import Quiz.App.Quiz.App.dto.QuestionRequest;
+import Quiz.App.Quiz.App.entity.Question;
+import Quiz.App.Quiz.App.repository.QuizRepository;
+import Quiz.App.Quiz.App.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports questions into a quiz from a CSV or NDJSON stream.
+ *
+ * Rows are read one at a time and validated with the QuestionRequest
+ * constraints; valid ones are inserted in unordered bulk batches, so memory
+ * holds at most one batch whatever the size of the file. Rejected rows are
+ * reported by row number, up to a limit. The quiz's total marks and
+ * question count are updated once, with what was actually inserted.
+ */
+@Service
+public class QuestionImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    // CSV header names, compared without case, spaces or underscores
+    private static final Set<String> CSV_REQUIRED_COLUMNS = Set.of(
+            "questiontext", "optiona", "optionb", "optionc", "optiond", "correctanswer");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuizTotalsService quizTotalsService;
+
+    @Autowired
+    private QuizCacheService quizCacheService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${question-import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${question-import.max-errors:100}")
+    private int maxErrors;
+
+    @Value("${question-import.max-row-chars:65536}")
+    private int maxRowChars;
+
+    public QuestionImportResultDto importQuestions(String quizId, InputStream input, Format format) {
+        if (!quizRepository.existsById(quizId)) {
+            throw new RuntimeException("Quiz not found");
+        }
+
+        Import run = new Import(quizId);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            if (format == Format.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+        } catch (IOException e) {
+            // Rows before the failure are kept; report where reading stopped
+            run.reject(run.result.getRowsRead() + 1, "Could not read input: " + e.getMessage());
+        } finally {
+            run.flush();
+            quizTotalsService.adjust(quizId, run.importedMarks, (int) run.result.getImported());
+            if (run.result.getImported() > 0) {
+                quizCacheService.invalidateQuiz(quizId);
+            }
+        }
+        return run.result;
+    }
+
+    private void readCsv(BufferedReader reader, Import run) throws IOException {
+        CsvReader csv = new CsvReader(reader, maxRowChars);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(normalize(header.get(i)), i);
+        }
+        List<String> missing = CSV_REQUIRED_COLUMNS.stream()
+                .filter(column -> !columns.containsKey(column))
+                .sorted()
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing CSV columns: " + String.join(", ", missing));
+        }
+
+        while (true) {
+            List<String> fields;
+            try {
+                fields = csv.readRecord();
+            } catch (CsvReader.MalformedRecordException e) {
+                // The reader has skipped the record, so the rest of the file is still imported
+                run.reject(run.nextRow(), e.getMessage());
+                continue;
+            }
+            if (fields == null) {
+                break;
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            long row = run.nextRow();
+            QuestionRequest request = new QuestionRequest();
+            request.setQuestionText(field(fields, columns, "questiontext"));
+            request.setOptionA(field(fields, columns, "optiona"));
+            request.setOptionB(field(fields, columns, "optionb"));
+            request.setOptionC(field(fields, columns, "optionc"));
+            request.setOptionD(field(fields, columns, "optiond"));
+            request.setCorrectAnswer(field(fields, columns, "correctanswer"));
+            String marks = field(fields, columns, "marks");
+            if (marks != null && !marks.isBlank()) {
+                try {
+                    request.setMarks(Integer.parseInt(marks.trim()));
+                } catch (NumberFormatException e) {
+                    run.reject(row, "Marks must be a whole number");
+                    continue;
+                }
+            }
+            run.accept(row, request);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Import run) throws IOException {
+        StringBuilder line = new StringBuilder();
+        boolean more = true;
+        while (more) {
+            more = readLine(reader, line);
+            if (line.toString().isBlank()) {
+                continue;
+            }
+            long row = run.nextRow();
+            if (line.length() > maxRowChars) {
+                run.reject(row, "Row longer than " + maxRowChars + " characters");
+                continue;
+            }
+            try {
+                run.accept(row, objectMapper.readValue(line.toString(), QuestionRequest.class));
+            } catch (JsonProcessingException e) {
+                run.reject(row, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * Read up to the next line break, keeping at most one character past the row limit
+     *
+     * @return false once the end of the input was reached
+     */
+    private boolean readLine(BufferedReader reader, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '\n') {
+                return true;
+            }
+            if (line.length() <= maxRowChars) {
+                line.append((char) c);
+            }
+        }
+        return false;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index != null && index < fields.size() ? fields.get(index) : null;
+    }
+
+    private static String normalize(String header) {
+        return header.trim().replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * State of one import: the pending batch and the running result
+     */
+    private final class Import {
+        private final String quizId;
+        private final QuestionImportResultDto result = new QuestionImportResultDto();
+        private final List<Question> batch = new ArrayList<>();
+        private final List<Long> batchRows = new ArrayList<>();
+        private int importedMarks;
+
+        private Import(String quizId) {
+            this.quizId = quizId;
+            result.setQuizId(quizId);
+        }
+
+        private long nextRow() {
+            result.setRowsRead(result.getRowsRead() + 1);
+            return result.getRowsRead();
+        }
+
+        private void accept(long row, QuestionRequest request) {
+            // Rows always go to the quiz in the URL
+            request.setQuizId(quizId);
+            Set<ConstraintViolation<QuestionRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                reject(row, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+
+            Question question = new Question();
+            question.setQuestionText(request.getQuestionText());
+            question.setOptionA(request.getOptionA());
+            question.setOptionB(request.getOptionB());
+            question.setOptionC(request.getOptionC());
+            question.setOptionD(request.getOptionD());
+            question.setCorrectAnswer(request.getCorrectAnswer());
+            question.setMarks(request.getMarks() != null ? request.getMarks() : 1);
+            question.setQuizId(quizId);
+            batch.add(question);
+            batchRows.add(row);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void reject(long row, String message) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < maxErrors) {
+                result.getErrors().add(new QuestionImportResultDto.RowError(row, message));
+            } else {
+                result.setErrorsTruncated(true);
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            Set<Integer> failedIndexes = Set.of();
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Question.class)
+                        .insert(batch)
+                        .execute();
+            } catch (BulkOperationException e) {
+                // Unordered, so everything but the reported inserts went in
+                failedIndexes = e.getErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+                for (BulkWriteError error : e.getErrors()) {
+                    reject(batchRows.get(error.getIndex()), "Could not save question: " + error.getMessage());
+                }
+            } catch (RuntimeException e) {
+                // Nothing is known to be saved; reported per row so the file can be fixed and resent
+                for (Long row : batchRows) {
+                    reject(row, "Could not save question: " + e.getMessage());
+                }
+                batch.clear();
+                batchRows.clear();
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                if (!failedIndexes.contains(i)) {
+                    importedMarks += batch.get(i).getMarks();
+                    result.setImported(result.getImported() + 1);
+                }
+            }
+            batch.clear();
+            batchRows.clear();
+        }
+    }
+}
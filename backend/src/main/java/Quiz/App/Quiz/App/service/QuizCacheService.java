@@ -0,0 +1,305 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.dto.QuizSummaryDto;
+import Quiz.App.Quiz.App.entity.Question;
+import Quiz.App.Quiz.App.entity.Quiz;
+import Quiz.App.Quiz.App.repository.QuestionRepository;
+import Quiz.App.Quiz.App.repository.QuizRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory cache of quiz metadata, question lists, compiled answer
+ * keys and the quiz catalog.
+ *
+ * Only one load per quiz id, and one per catalog, runs at a time: concurrent
+ * misses wait for the caller that is already loading.
+ *
+ * Quizzes only change through AdminService, which invalidates the affected
+ * entries explicitly. Each quiz id has its own version counter and the
+ * catalogs share another, so editing one quiz does not discard loads of the
+ * others. Every invalidation bumps the version before it removes entries,
+ * and a load that started before an invalidation is discarded instead of
+ * being cached: the version is checked before the put and again after it,
+ * so a slow reader can never leave stale data behind. The TTL bounds
+ * staleness for changes made outside this node.
+ *
+ * Cached objects are shared: callers must copy before mutating them.
+ */
+@Service
+public class QuizCacheService {
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private MongoAggregationService mongoAggregationService;
+
+    @Value("${quiz.cache.max-entries:500}")
+    private int maxEntries;
+
+    @Value("${quiz.cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final ConcurrentHashMap<String, CachedQuiz> quizzes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Boolean, CachedCatalog> catalogs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<CachedQuiz>>> quizLoads = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Boolean, CompletableFuture<List<QuizSummaryDto>>> catalogLoads = new ConcurrentHashMap<>();
+    // Only created when a quiz is invalidated; a missing counter reads as version 0
+    private final ConcurrentHashMap<String, AtomicLong> quizVersions = new ConcurrentHashMap<>();
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder discardedLoads = new LongAdder();
+
+    /**
+     * Get a quiz and its questions, loading both on a miss
+     */
+    public Optional<CachedQuiz> getQuiz(String quizId) {
+        CachedQuiz cached = quizzes.get(quizId);
+        if (cached != null && !isExpired(cached.loadedAtNanos)) {
+            cached.lastAccessNanos = System.nanoTime();
+            hits.increment();
+            return Optional.of(cached);
+        }
+
+        misses.increment();
+        CompletableFuture<Optional<CachedQuiz>> loading = new CompletableFuture<>();
+        CompletableFuture<Optional<CachedQuiz>> existing = quizLoads.putIfAbsent(quizId, loading);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        try {
+            Optional<CachedQuiz> loaded = loadQuiz(quizId);
+            loading.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            quizLoads.remove(quizId, loading);
+        }
+    }
+
+    /**
+     * Get the active or full quiz catalog
+     */
+    public List<QuizSummaryDto> getCatalog(boolean activeOnly) {
+        CachedCatalog cached = catalogs.get(activeOnly);
+        if (cached != null && !isExpired(cached.loadedAtNanos)) {
+            hits.increment();
+            return cached.quizzes;
+        }
+
+        misses.increment();
+        CompletableFuture<List<QuizSummaryDto>> loading = new CompletableFuture<>();
+        CompletableFuture<List<QuizSummaryDto>> existing = catalogLoads.putIfAbsent(activeOnly, loading);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        try {
+            List<QuizSummaryDto> loaded = loadCatalog(activeOnly);
+            loading.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            catalogLoads.remove(activeOnly, loading);
+        }
+    }
+
+    /**
+     * Drop a quiz and the catalogs after an admin change
+     */
+    public void invalidateQuiz(String quizId) {
+        if (quizId != null) {
+            quizVersions.computeIfAbsent(quizId, id -> new AtomicLong()).incrementAndGet();
+            quizzes.remove(quizId);
+            // Later misses must not wait for a load that started before the change
+            quizLoads.remove(quizId);
+        }
+        clearCatalogs();
+        invalidations.increment();
+    }
+
+    /**
+     * Drop only the catalogs, e.g. after a new quiz was created
+     */
+    public void invalidateCatalog() {
+        clearCatalogs();
+        invalidations.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", quizzes.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("catalogVersion", catalogVersion.get());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("coalesced", coalesced.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("discardedLoads", discardedLoads.sum());
+        return stats;
+    }
+
+    private Optional<CachedQuiz> loadQuiz(String quizId) {
+        long loadVersion = quizVersion(quizId);
+        Optional<Quiz> quiz = quizRepository.findById(quizId);
+        if (quiz.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Question> questions = questionRepository.findByQuizId(quizId);
+        CachedQuiz loaded = new CachedQuiz(quiz.get(), questions, loadVersion);
+
+        // Only cache what we read if nothing was invalidated while reading it. An invalidation
+        // can still land between the check and the put, so check again once the entry is in.
+        if (quizVersion(quizId) == loadVersion) {
+            quizzes.put(quizId, loaded);
+            if (quizVersion(quizId) != loadVersion) {
+                quizzes.remove(quizId, loaded);
+                discardedLoads.increment();
+            } else {
+                evictIfNeeded();
+            }
+        } else {
+            discardedLoads.increment();
+        }
+        return Optional.of(loaded);
+    }
+
+    private List<QuizSummaryDto> loadCatalog(boolean activeOnly) {
+        long loadVersion = catalogVersion.get();
+        List<QuizSummaryDto> catalog = Collections.unmodifiableList(
+                new ArrayList<>(mongoAggregationService.getQuizCatalog(activeOnly)));
+        if (catalogVersion.get() == loadVersion) {
+            CachedCatalog loaded = new CachedCatalog(catalog);
+            catalogs.put(activeOnly, loaded);
+            if (catalogVersion.get() != loadVersion) {
+                catalogs.remove(activeOnly, loaded);
+                discardedLoads.increment();
+            }
+        } else {
+            discardedLoads.increment();
+        }
+        return catalog;
+    }
+
+    private void clearCatalogs() {
+        catalogVersion.incrementAndGet();
+        catalogs.clear();
+        catalogLoads.clear();
+    }
+
+    private long quizVersion(String quizId) {
+        AtomicLong quizVersion = quizVersions.get(quizId);
+        return quizVersion == null ? 0 : quizVersion.get();
+    }
+
+    private static <T> T await(CompletableFuture<T> loading) {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isExpired(long loadedAtNanos) {
+        return System.nanoTime() - loadedAtNanos > TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    private void evictIfNeeded() {
+        // Inserts only happen on misses, so a linear scan for the least recently used entry is cheap
+        while (quizzes.size() > maxEntries) {
+            String eldestKey = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<String, CachedQuiz> entry : quizzes.entrySet()) {
+                if (entry.getValue().lastAccessNanos < eldestAccess) {
+                    eldestAccess = entry.getValue().lastAccessNanos;
+                    eldestKey = entry.getKey();
+                }
+            }
+            if (eldestKey == null || quizzes.remove(eldestKey) == null) {
+                return;
+            }
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Immutable snapshot of a quiz, its questions and their answer key
+     */
+    public static final class CachedQuiz {
+        private final Quiz quiz;
+        private final List<Question> questions;
+        private final AnswerKey answerKey;
+        private final long version;
+        private final long loadedAtNanos;
+        private volatile long lastAccessNanos;
+
+        private CachedQuiz(Quiz quiz, List<Question> questions, long version) {
+            this.quiz = quiz;
+            this.questions = Collections.unmodifiableList(new ArrayList<>(questions));
+            this.answerKey = AnswerKey.compile(this.questions);
+            this.version = version;
+            this.loadedAtNanos = System.nanoTime();
+            this.lastAccessNanos = this.loadedAtNanos;
+        }
+
+        public Quiz getQuiz() {
+            return quiz;
+        }
+
+        public List<Question> getQuestions() {
+            return questions;
+        }
+
+        public AnswerKey getAnswerKey() {
+            return answerKey;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    private static final class CachedCatalog {
+        private final List<QuizSummaryDto> quizzes;
+        private final long loadedAtNanos = System.nanoTime();
+
+        private CachedCatalog(List<QuizSummaryDto> quizzes) {
+            this.quizzes = quizzes;
+        }
+    }
+}
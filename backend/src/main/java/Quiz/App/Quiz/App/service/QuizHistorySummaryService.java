@@ -0,0 +1,234 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.QuizHistorySummary;
+import Quiz.App.Quiz.App.entity.QuizResult;
+import Quiz.App.Quiz.App.repository.QuizHistorySummaryRepository;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains quiz_history_summaries: one document per (user, quiz) with
+ * attempt count, total, best and latest score, and first and last attempt.
+ *
+ * Each written result is folded in with an upsert followed by a conditional
+ * update that only sets the latest score if the result is still the newest
+ * attempt, so concurrent or out-of-order writes can't leave an older score
+ * as "latest". The collection is backfilled from quiz_results once, before
+ * the application serves requests, and a stored marker records that the
+ * backfill completed.
+ */
+@Service
+public class QuizHistorySummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuizHistorySummaryService.class);
+
+    private static final String COLLECTION = "quiz_history_summaries";
+    private static final String BACKFILL = "quiz_history_summaries";
+
+    // Results completed this close to a rebuild may have been folded in by other nodes meanwhile
+    private static final Duration REBUILD_OVERLAP = Duration.ofMinutes(5);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private QuizHistorySummaryRepository summaryRepository;
+
+    @Autowired
+    private BackfillMarkerService backfillMarkerService;
+
+    /**
+     * Fold newly written results into their (user, quiz) summaries
+     */
+    public void recordAll(List<QuizResult> results) {
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        for (QuizResult result : results) {
+            if (result.getUserId() != null && result.getQuizId() != null) {
+                deltas.computeIfAbsent(QuizHistorySummary.idOf(result.getUserId(), result.getQuizId()),
+                        id -> new Delta(result)).add(result);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // Ordered, so each latest-score update runs after its own upsert
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, QuizHistorySummary.class);
+        deltas.forEach((id, delta) -> {
+            Update update = new Update()
+                    .setOnInsert("userId", delta.userId)
+                    .setOnInsert("quizId", delta.quizId)
+                    .set("quizTitle", delta.quizTitle)
+                    .inc("attemptCount", delta.attempts)
+                    .inc("totalScore", delta.totalScore)
+                    .max("bestScore", delta.bestScore)
+                    .min("firstAttempt", delta.firstAttempt)
+                    .max("lastAttempt", delta.lastAttempt);
+            bulk.upsert(Query.query(Criteria.where("_id").is(id)), update);
+
+            bulk.updateOne(Query.query(Criteria.where("_id").is(id).and("lastAttempt").is(delta.lastAttempt)),
+                    new Update()
+                            .set("latestScore", delta.latestScore)
+                            .set("totalQuestions", delta.totalQuestions));
+        });
+        bulk.execute();
+    }
+
+    public List<QuizHistorySummary> getHistory(String userId) {
+        return summaryRepository.findByUserIdOrderByLastAttemptDesc(userId);
+    }
+
+    /**
+     * Rebuild one summary from quiz_results, e.g. after a result was deleted
+     */
+    public void recompute(String userId, String quizId) {
+        Criteria match = Criteria.where("user_id").is(userId).and("quiz_id").is(quizId);
+        if (mongoTemplate.count(Query.query(match), QuizResult.class) == 0) {
+            summaryRepository.deleteById(QuizHistorySummary.idOf(userId, quizId));
+            return;
+        }
+        rebuild(match);
+    }
+
+    public void deleteUser(String userId) {
+        summaryRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Drop the summaries of a quiz whose results are all gone, by id in one $in delete
+     */
+    public void deleteQuiz(String quizId, Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        summaryRepository.deleteAllById(userIds.stream()
+                .map(userId -> QuizHistorySummary.idOf(userId, quizId))
+                .toList());
+    }
+
+    // Before the application serves requests, so no submission on this node races the rebuild
+    @PostConstruct
+    public void backfillOnStartup() {
+        try {
+            if (backfillMarkerService.isCompleted(BACKFILL)) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            rebuildAll();
+            long duration = System.currentTimeMillis() - start;
+            backfillMarkerService.markCompleted(BACKFILL, duration);
+            logger.info("Backfilled quiz history summaries in {} ms", duration);
+        } catch (Exception e) {
+            logger.error("Quiz history summary backfill failed, retrying on next startup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute every summary. The $merge replaces whole documents, so updates
+     * from other nodes that land while it runs can be overwritten; summaries
+     * with results completed since shortly before the rebuild are recomputed
+     * once more.
+     */
+    public void rebuildAll() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(REBUILD_OVERLAP);
+        rebuild(new Criteria());
+
+        Query recent = Query.query(Criteria.where("completedAt").gte(cutoff));
+        recent.fields().include("userId").include("quizId");
+        Set<String> recomputed = new HashSet<>();
+        for (QuizResult result : mongoTemplate.find(recent, QuizResult.class)) {
+            if (result.getUserId() != null && result.getQuizId() != null
+                    && recomputed.add(QuizHistorySummary.idOf(result.getUserId(), result.getQuizId()))) {
+                recompute(result.getUserId(), result.getQuizId());
+            }
+        }
+    }
+
+    /**
+     * Recompute the summaries of all matching results in one $group/$merge pass
+     */
+    private void rebuild(Criteria match) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.match(new Criteria().andOperator(match,
+                Criteria.where("user_id").type(2), Criteria.where("quiz_id").type(2))));
+        // Sorted by completion so $last picks the latest attempt
+        operations.add(context -> new Document("$sort", new Document("completed_at", 1)));
+        operations.add(context -> new Document("$group",
+                new Document("_id", new Document("u", "$user_id").append("q", "$quiz_id"))
+                        .append("quiz_title", new Document("$last", "$quiz_title"))
+                        .append("total_questions", new Document("$last", "$total_questions"))
+                        .append("attempt_count", new Document("$sum", 1))
+                        .append("total_score", new Document("$sum", "$score"))
+                        .append("best_score", new Document("$max", "$score"))
+                        .append("latest_score", new Document("$last", "$score"))
+                        .append("first_attempt", new Document("$min", "$completed_at"))
+                        .append("last_attempt", new Document("$max", "$completed_at"))));
+        operations.add(context -> new Document("$addFields",
+                new Document("user_id", "$_id.u").append("quiz_id", "$_id.q")));
+        operations.add(context -> new Document("$addFields",
+                new Document("_id", new Document("$concat", List.of("$user_id", ":", "$quiz_id")))));
+        operations.add(Aggregation.merge()
+                .intoCollection(COLLECTION)
+                .whenMatched(MergeOperation.WhenDocumentsMatch.replaceDocument())
+                .build());
+
+        mongoTemplate.aggregate(Aggregation.newAggregation(operations), "quiz_results", Document.class);
+    }
+
+    private static final class Delta {
+        private final String userId;
+        private final String quizId;
+        private String quizTitle;
+        private int attempts;
+        private long totalScore;
+        private int bestScore;
+        private int latestScore;
+        private Integer totalQuestions;
+        private LocalDateTime firstAttempt;
+        private LocalDateTime lastAttempt;
+
+        private Delta(QuizResult first) {
+            this.userId = first.getUserId();
+            this.quizId = first.getQuizId();
+        }
+
+        private void add(QuizResult result) {
+            int score = result.getScore() != null ? result.getScore() : 0;
+            LocalDateTime completedAt = result.getCompletedAt() != null ? result.getCompletedAt() : LocalDateTime.now();
+            attempts++;
+            totalScore += score;
+            bestScore = attempts == 1 ? score : Math.max(bestScore, score);
+            if (firstAttempt == null || completedAt.isBefore(firstAttempt)) {
+                firstAttempt = completedAt;
+            }
+            if (lastAttempt == null || !completedAt.isBefore(lastAttempt)) {
+                lastAttempt = completedAt;
+                latestScore = score;
+                totalQuestions = result.getTotalQuestions();
+                quizTitle = result.getQuizTitle();
+            }
+        }
+    }
+}
@@ -1,24 +1,39 @@
 package Quiz.App.Quiz.App.service;
 
+import Quiz.App.Quiz.App.dto.PurgeJobDto;
 import Quiz.App.Quiz.App.dto.QuizHistoryDto;
+import Quiz.App.Quiz.App.dto.QuizHistoryPageDto;
 import Quiz.App.Quiz.App.dto.QuizResultResponse;
+import Quiz.App.Quiz.App.dto.QuizSummaryDto;
 import Quiz.App.Quiz.App.dto.QuizSubmissionRequest;
 import Quiz.App.Quiz.App.entity.*;
 import Quiz.App.Quiz.App.repository.*;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class QuizService {
     
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    
     @Autowired
     private QuizRepository quizRepository;
     
@@ -37,32 +52,40 @@ public class QuizService {
     @Autowired
     private MongoAggregationService mongoAggregationService;
     
-    public List<Quiz> getActiveQuizzes() {
+    @Autowired
+    private QuizCacheService quizCacheService;
+    
+    @Autowired
+    private SubmissionWriter submissionWriter;
+    
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+    
+    @Autowired
+    private WindowedLeaderboard windowedLeaderboard;
+    
+    @Autowired
+    private LeaderboardStatsCounters leaderboardStatsCounters;
+    
+    @Autowired
+    private QuizHistorySummaryService quizHistorySummaryService;
+    
+    @Autowired
+    private ResultPurgeService resultPurgeService;
+    
+    public List<QuizSummaryDto> getActiveQuizzes() {
         try {
-            List<Quiz> quizzes = quizRepository.findByIsActiveTrue();
-            // Populate questions count for each quiz
-            for (Quiz quiz : quizzes) {
-                List<Question> questions = questionRepository.findByQuizId(quiz.getId());
-                // Set questions in quiz object for frontend display
-                quiz.setQuestions(questions);
-            }
-            return quizzes;
+            // Question counts are computed inside the same aggregation
+            return quizCacheService.getCatalog(true);
         } catch (Exception e) {
             System.err.println("Error fetching active quizzes: " + e.getMessage());
             return new ArrayList<>();
         }
     }
     
-    public List<Quiz> getAllQuizzes() {
+    public List<QuizSummaryDto> getAllQuizzes() {
         try {
-            List<Quiz> quizzes = quizRepository.findAll();
-            // Populate questions count for each quiz
-            for (Quiz quiz : quizzes) {
-                List<Question> questions = questionRepository.findByQuizId(quiz.getId());
-                // Set questions in quiz object for frontend display
-                quiz.setQuestions(questions);
-            }
-            return quizzes;
+            return quizCacheService.getCatalog(false);
         } catch (Exception e) {
             System.err.println("Error fetching all quizzes: " + e.getMessage());
             return new ArrayList<>();
@@ -70,31 +93,41 @@ public class QuizService {
     }
     
     public Quiz getQuizById(String id) {
-        Quiz quiz = quizRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Quiz not found"));
-        // Populate questions for the quiz
-        List<Question> questions = questionRepository.findByQuizId(quiz.getId());
-        quiz.setQuestions(questions);
+        QuizCacheService.CachedQuiz cached = getCachedQuiz(id);
+        // Cached objects are shared, so hand out a copy with questions populated
+        Quiz quiz = copyQuiz(cached.getQuiz());
+        quiz.setQuestions(new ArrayList<>(cached.getQuestions()));
         return quiz;
     }
     
     public List<Question> getQuizQuestions(String quizId) {
-        // Verify quiz exists
-        getQuizById(quizId);
-        List<Question> questions = questionRepository.findByQuizId(quizId);
+        List<Question> questions = new ArrayList<>();
         
         // Remove correct answers from response for security
-        questions.forEach(question -> question.setCorrectAnswer(null));
+        for (Question cachedQuestion : getCachedQuiz(quizId).getQuestions()) {
+            Question question = copyQuestion(cachedQuestion);
+            question.setCorrectAnswer(null);
+            questions.add(question);
+        }
         
         return questions;
     }
     
+    private QuizCacheService.CachedQuiz getCachedQuiz(String quizId) {
+        return quizCacheService.getQuiz(quizId)
+                .orElseThrow(() -> new RuntimeException("Quiz not found"));
+    }
+    
     public QuizResultResponse submitQuiz(String quizId, QuizSubmissionRequest request) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
+        
+        // The filter already loaded the user as the principal
+        if (auth.getPrincipal() instanceof User principal) {
+            return performQuizSubmission(quizId, request, principal);
+        }
         
         // Get user by username
-        User user = userRepository.findByUsername(username)
+        User user = userRepository.findByUsername(auth.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         return performQuizSubmission(quizId, request, user);
@@ -115,80 +148,110 @@ public class QuizService {
     }
     
     private QuizResultResponse performQuizSubmission(String quizId, QuizSubmissionRequest request, User user) {
-        // Validate quiz exists
-        Quiz quiz = getQuizById(quizId);
+        // Validate quiz exists and get its questions from the cache
+        QuizCacheService.CachedQuiz cachedQuiz = getCachedQuiz(quizId);
+        Quiz quiz = cachedQuiz.getQuiz();
+        List<Question> questions = cachedQuiz.getQuestions();
         
-        // Get all questions for this quiz
-        List<Question> questions = questionRepository.findByQuizId(quizId);
+        // Score against the precompiled answer key, questions are in key order
+        Map<String, String> submittedAnswers = request.getAnswers() != null ? request.getAnswers() : Map.of();
+        AnswerKey answerKey = cachedQuiz.getAnswerKey();
+        AnswerKey.Score score = answerKey.score(submittedAnswers);
         
-        // Calculate score
-        int score = 0;
-        int correctAnswers = 0;
-        int wrongAnswers = 0;
+        // Create user answers, embedded in the result document
+        List<UserAnswer> userAnswers = new ArrayList<>(answerKey.size());
+        for (int i = 0; i < answerKey.size(); i++) {
+            UserAnswer userAnswer = new UserAnswer();
+            userAnswer.setQuestionId(answerKey.questionId(i)); // Set question ID instead of object
+            userAnswer.setSelectedAnswer(submittedAnswers.get(answerKey.questionId(i)));
+            userAnswer.setIsCorrect(score.isCorrect(i));
+            userAnswer.setMarksObtained(score.isCorrect(i) ? answerKey.marks(i) : 0);
+            userAnswers.add(userAnswer);
+        }
         
-        // Create quiz result with denormalized data
+        // Create quiz result with denormalized data, fully computed before the single write
         QuizResult quizResult = new QuizResult();
         quizResult.setUserId(user.getId()); // Set user ID instead of user object
         quizResult.setQuizId(quiz.getId()); // Set quiz ID instead of quiz object
         quizResult.setUserUsername(user.getUsername()); // Denormalized data
         quizResult.setQuizTitle(quiz.getTitle()); // Denormalized data
         quizResult.setQuizTotalMarks(quiz.getTotalMarks()); // Denormalized data
-        quizResult.setScore(score);
+        quizResult.setScore(score.getScore());
         quizResult.setTotalQuestions(questions.size());
-        quizResult.setCorrectAnswers(correctAnswers);
-        quizResult.setWrongAnswers(wrongAnswers);
+        quizResult.setCorrectAnswers(score.getCorrectAnswers());
+        quizResult.setWrongAnswers(score.getWrongAnswers());
         quizResult.setTimeTakenSeconds(request.getTimeTakenSeconds());
+        quizResult.setAnswers(userAnswers);
         
-        QuizResult savedResult = quizResultRepository.save(quizResult);
-        
-        // Create user answers and calculate score
-        List<UserAnswer> userAnswers = new ArrayList<>();
-        Map<String, String> submittedAnswers = request.getAnswers(); // Changed from Long to String
-        
-        for (Question question : questions) {
-            UserAnswer userAnswer = new UserAnswer();
-            userAnswer.setQuizResultId(savedResult.getId()); // Set quiz result ID
-            userAnswer.setQuestionId(question.getId()); // Set question ID instead of object
-            
-            String submittedAnswer = submittedAnswers.get(question.getId());
-            userAnswer.setSelectedAnswer(submittedAnswer);
-            
-            if (submittedAnswer != null && submittedAnswer.equals(question.getCorrectAnswer())) {
-                userAnswer.setIsCorrect(true);
-                userAnswer.setMarksObtained(question.getMarks());
-                score += question.getMarks();
-                correctAnswers++;
-            } else {
-                userAnswer.setIsCorrect(false);
-                userAnswer.setMarksObtained(0);
-                wrongAnswers++;
-            }
-            
-            userAnswers.add(userAnswer);
-        }
+        // Ranked before it is handed over, so a write-behind failure can never remove it before it was added.
+        // The writer takes it off the leaderboards again if it can't be persisted.
+        quizResult.setId(SubmissionWriter.newResultId());
+        leaderboardIndex.record(quizResult);
+        windowedLeaderboard.record(quizResult);
+        leaderboardStatsCounters.record(quizResult);
         
-        // Update quiz result with final score
-        savedResult.setScore(score);
-        savedResult.setCorrectAnswers(correctAnswers);
-        savedResult.setWrongAnswers(wrongAnswers);
-        savedResult = quizResultRepository.save(savedResult);
-        
-        // Save all user answers
-        userAnswerRepository.saveAll(userAnswers);
+        // Written directly, or queued when write-behind is enabled
+        QuizResult savedResult = submissionWriter.persist(quizResult);
         
         return buildQuizResultResponse(savedResult, questions, userAnswers);
     }
     
     public List<QuizResultResponse> getUserQuizResults(String userId) {
         List<QuizResult> results = quizResultRepository.findByUserId(userId);
-        List<QuizResultResponse> responses = new ArrayList<>();
+        return buildQuizResultResponses(results);
+    }
+    
+    public QuizHistoryPageDto getUserQuizHistoryPageByUsername(String username, String cursor, int size) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
         
+        // Fetch one extra row to know whether another page follows
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        Limit limit = Limit.of(pageSize + 1);
+        List<QuizResult> results;
+        if (cursor == null || cursor.isBlank()) {
+            results = quizResultRepository.findHistoryPage(user.getId(), limit);
+        } else {
+            HistoryCursor position = HistoryCursor.decode(cursor);
+            results = quizResultRepository.findHistoryPageAfter(user.getId(), position.completedAt, position.id, limit);
+        }
+        
+        boolean hasMore = results.size() > pageSize;
+        if (hasMore) {
+            results = results.subList(0, pageSize);
+        }
+        
+        QuizHistoryPageDto page = new QuizHistoryPageDto();
+        page.setResults(buildQuizResultResponses(results));
+        page.setNextCursor(hasMore ? HistoryCursor.encode(results.get(results.size() - 1)) : null);
+        return page;
+    }
+    
+    private List<QuizResultResponse> buildQuizResultResponses(List<QuizResult> results) {
+        // Questions for all quizzes and legacy answers for all results, one $in query each
+        Set<String> quizIds = results.stream()
+                .map(QuizResult::getQuizId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, List<Question>> questionsByQuiz = quizIds.isEmpty() ? Map.of() :
+                questionRepository.findByQuizIdIn(quizIds).stream()
+                        .collect(Collectors.groupingBy(Question::getQuizId));
+        
+        List<String> legacyResultIds = results.stream()
+                .filter(result -> result.getAnswers() == null)
+                .map(QuizResult::getId)
+                .collect(Collectors.toList());
+        Map<String, List<UserAnswer>> legacyAnswers = legacyResultIds.isEmpty() ? Map.of() :
+                userAnswerRepository.findByQuizResultIdIn(legacyResultIds).stream()
+                        .collect(Collectors.groupingBy(UserAnswer::getQuizResultId));
+        
+        List<QuizResultResponse> responses = new ArrayList<>();
         for (QuizResult result : results) {
-            List<Question> questions = questionRepository.findByQuizId(result.getQuizId()); // Use quiz ID
-            List<UserAnswer> userAnswers = userAnswerRepository.findByQuizResultId(result.getId());
+            List<Question> questions = questionsByQuiz.getOrDefault(result.getQuizId(), List.of());
+            List<UserAnswer> userAnswers = result.getAnswers() != null ?
+                    result.getAnswers() : legacyAnswers.getOrDefault(result.getId(), List.of());
             responses.add(buildQuizResultResponse(result, questions, userAnswers));
         }
-        
         return responses;
     }
     
@@ -209,30 +272,21 @@ public class QuizService {
     }
     
     public List<QuizHistoryDto> getUserQuizHistoryWithAttempts(String userId) {
-        // Use MongoDB aggregation service instead of complex JPA queries
-        List<Map<String, Object>> statistics = mongoAggregationService.getQuizStatisticsByUserId(userId);
+        // One indexed read of the per-quiz summaries maintained on submission
         List<QuizHistoryDto> historyList = new ArrayList<>();
         
-        for (Map<String, Object> stat : statistics) {
+        for (QuizHistorySummary summary : quizHistorySummaryService.getHistory(userId)) {
             QuizHistoryDto history = new QuizHistoryDto();
-            history.setQuizId((String) stat.get("_id")); // MongoDB ObjectId as String
-            history.setQuizTitle((String) stat.get("quizTitle"));
-            history.setQuizDescription(""); // Description not available in aggregation
-            history.setTotalQuestions(((Number) stat.get("totalQuestions")).intValue()); // Fixed: was using totalMarks
-            history.setAttemptCount(((Number) stat.get("attemptCount")).intValue());
-            history.setBestScore(((Number) stat.get("bestScore")).intValue());
-            history.setAverageScore(((Number) stat.get("averageScore")).doubleValue());
-            history.setFirstAttemptDate((LocalDateTime) stat.get("firstAttempt"));
-            history.setLastAttemptDate((LocalDateTime) stat.get("lastAttempt"));
-            
-            // Get the latest attempt to get the latest score
-            List<QuizResult> latestAttempts = quizResultRepository.findByUserIdOrderByCompletedAtDesc(userId);
-            if (!latestAttempts.isEmpty()) {
-                QuizResult latestAttempt = latestAttempts.get(0);
-                history.setLatestScore(latestAttempt.getScore());
-                history.setTotalQuestions(latestAttempt.getTotalQuestions()); // Get actual question count
-            }
-            
+            history.setQuizId(summary.getQuizId());
+            history.setQuizTitle(summary.getQuizTitle());
+            history.setQuizDescription(""); // Description not stored in the summary
+            history.setTotalQuestions(summary.getTotalQuestions());
+            history.setAttemptCount(summary.getAttemptCount());
+            history.setBestScore(summary.getBestScore());
+            history.setLatestScore(summary.getLatestScore());
+            history.setAverageScore(summary.getAverageScore());
+            history.setFirstAttemptDate(summary.getFirstAttempt());
+            history.setLastAttemptDate(summary.getLastAttempt());
             historyList.add(history);
         }
         
@@ -241,28 +295,94 @@ public class QuizService {
     
     public List<QuizResult> getLeaderboard(String quizId) {
         if (quizId != null) {
-            return quizResultRepository.findByQuizIdOrderByScoreDesc(quizId);
+            return quizResultRepository.findTopByQuizIdOrderByScoreDesc(quizId, Limit.of(50));
         } else {
-            return quizResultRepository.findTopByOrderByScoreDesc(50);
+            return quizResultRepository.findTopByOrderByScoreDesc(Limit.of(50));
         }
     }
     
     public QuizResultResponse getQuizResult(String resultId) {
-        QuizResult result = quizResultRepository.findById(resultId)
+        // A result may still be queued for write-behind
+        QuizResult result = submissionWriter.findPending(resultId)
+                .or(() -> quizResultRepository.findById(resultId))
                 .orElseThrow(() -> new RuntimeException("Quiz result not found"));
         
         List<Question> questions = questionRepository.findByQuizId(result.getQuizId()); // Use quiz ID
-        List<UserAnswer> userAnswers = userAnswerRepository.findByQuizResultId(result.getId());
+        List<UserAnswer> userAnswers = getUserAnswers(result);
         
         return buildQuizResultResponse(result, questions, userAnswers);
     }
     
-    public void deleteUserResults(String userId) {
-        List<QuizResult> results = quizResultRepository.findByUserId(userId);
-        for (QuizResult result : results) {
-            userAnswerRepository.deleteByQuizResultId(result.getId());
+    private List<UserAnswer> getUserAnswers(QuizResult result) {
+        // Older results keep their answers in the user_answers collection
+        if (result.getAnswers() != null) {
+            return result.getAnswers();
+        }
+        return userAnswerRepository.findByQuizResultId(result.getId());
+    }
+    
+    /**
+     * Delete a user's results and answers, in the background if there are many
+     */
+    public Optional<PurgeJobDto> deleteUserResults(String userId) {
+        return resultPurgeService.purgeUser(userId);
+    }
+    
+    /**
+     * Opaque history position: completion time and id of the last result on a page
+     */
+    private static final class HistoryCursor {
+        private final LocalDateTime completedAt;
+        private final ObjectId id;
+        
+        private HistoryCursor(LocalDateTime completedAt, ObjectId id) {
+            this.completedAt = completedAt;
+            this.id = id;
         }
-        quizResultRepository.deleteByUserId(userId);
+        
+        private static String encode(QuizResult last) {
+            String raw = last.getCompletedAt() + "|" + last.getId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        private static HistoryCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        new ObjectId(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid history cursor");
+            }
+        }
+    }
+    
+    private Quiz copyQuiz(Quiz source) {
+        Quiz quiz = new Quiz();
+        quiz.setId(source.getId());
+        quiz.setTitle(source.getTitle());
+        quiz.setDescription(source.getDescription());
+        quiz.setDurationMinutes(source.getDurationMinutes());
+        quiz.setTotalMarks(source.getTotalMarks());
+        quiz.setQuestionCount(source.getQuestionCount());
+        quiz.setDifficulty(source.getDifficulty());
+        quiz.setCreatedAt(source.getCreatedAt());
+        quiz.setIsActive(source.getIsActive());
+        return quiz;
+    }
+    
+    private Question copyQuestion(Question source) {
+        Question question = new Question();
+        question.setId(source.getId());
+        question.setQuestionText(source.getQuestionText());
+        question.setOptionA(source.getOptionA());
+        question.setOptionB(source.getOptionB());
+        question.setOptionC(source.getOptionC());
+        question.setOptionD(source.getOptionD());
+        question.setCorrectAnswer(source.getCorrectAnswer());
+        question.setMarks(source.getMarks());
+        question.setQuizId(source.getQuizId());
+        return question;
     }
     
     private QuizResultResponse buildQuizResultResponse(QuizResult result, 
@@ -0,0 +1,137 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.Question;
+import Quiz.App.Quiz.App.entity.Quiz;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps each quiz's total marks and question count in step with its questions.
+ *
+ * Question changes apply their difference with a single $inc on the quiz,
+ * so concurrent edits can't overwrite each other and nothing is reloaded.
+ * reconcile() recomputes both from the questions in one aggregation and
+ * repairs any quiz that has drifted; it runs once at startup, before the
+ * catalog is served, to fill in quizzes created before the counts existed.
+ */
+@Service
+public class QuizTotalsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuizTotalsService.class);
+    private static final String BACKFILL = "quiz_totals";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private QuizCacheService quizCacheService;
+
+    @Autowired
+    private BackfillMarkerService backfillMarkerService;
+
+    /**
+     * Apply a change in marks and question count to a quiz
+     */
+    public void adjust(String quizId, int marksDelta, int questionDelta) {
+        if (quizId == null || (marksDelta == 0 && questionDelta == 0)) {
+            return;
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(quizId)),
+                new Update().inc("totalMarks", marksDelta).inc("questionCount", questionDelta),
+                Quiz.class);
+    }
+
+    /**
+     * Recompute total marks and question count of every quiz and fix the ones that drifted.
+     * A repair only applies if the quiz still has the totals that were read, so a
+     * question edit that lands while it runs is not overwritten; that quiz is
+     * skipped and left for the next run.
+     */
+    public Map<String, Object> reconcile() {
+        long start = System.currentTimeMillis();
+        Map<String, Totals> actual = new HashMap<>();
+        TypedAggregation<Question> totalsByQuiz = Aggregation.newAggregation(Question.class,
+                Aggregation.group("quizId").sum("marks").as("totalMarks").count().as("questionCount"));
+        for (Document totals : mongoTemplate.aggregate(totalsByQuiz, Document.class)) {
+            if (totals.get("_id") instanceof String quizId) {
+                actual.put(quizId, new Totals(((Number) totals.get("totalMarks")).intValue(),
+                        ((Number) totals.get("questionCount")).intValue()));
+            }
+        }
+
+        Query quizzes = new Query();
+        quizzes.fields().include("_id").include("totalMarks").include("questionCount");
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Quiz.class);
+        int checked = 0;
+        List<String> repaired = new ArrayList<>();
+        for (Quiz quiz : mongoTemplate.find(quizzes, Quiz.class)) {
+            checked++;
+            Totals totals = actual.getOrDefault(quiz.getId(), Totals.EMPTY);
+            if (!Objects.equals(quiz.getTotalMarks(), totals.marks())
+                    || !Objects.equals(quiz.getQuestionCount(), totals.questions())) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(quiz.getId())
+                                .and("totalMarks").is(quiz.getTotalMarks())
+                                .and("questionCount").is(quiz.getQuestionCount())),
+                        new Update().set("totalMarks", totals.marks()).set("questionCount", totals.questions()));
+                repaired.add(quiz.getId());
+            }
+        }
+        int modified = 0;
+        if (!repaired.isEmpty()) {
+            BulkWriteResult result = bulk.execute();
+            modified = result.getModifiedCount();
+            repaired.forEach(quizCacheService::invalidateQuiz);
+        }
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("quizzesChecked", checked);
+        report.put("quizzesRepaired", modified);
+        // Changed while reconciling; their new totals are rechecked on the next run
+        report.put("quizzesSkipped", repaired.size() - modified);
+        report.put("durationMs", System.currentTimeMillis() - start);
+        logger.info("Reconciled quiz totals: {} of {} quizzes repaired, {} skipped",
+                modified, checked, repaired.size() - modified);
+        return report;
+    }
+
+    // Before the application serves requests, so the catalog never shows quizzes without counts
+    @PostConstruct
+    public void backfillOnStartup() {
+        try {
+            if (backfillMarkerService.isCompleted(BACKFILL)) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            Map<String, Object> report = reconcile();
+            if ((int) report.get("quizzesSkipped") > 0) {
+                logger.warn("Quiz totals changed during the backfill, retrying on next startup");
+                return;
+            }
+            backfillMarkerService.markCompleted(BACKFILL, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Quiz totals backfill failed, retrying on next startup: {}", e.getMessage());
+        }
+    }
+
+    private record Totals(int marks, int questions) {
+        private static final Totals EMPTY = new Totals(0, 0);
+    }
+}
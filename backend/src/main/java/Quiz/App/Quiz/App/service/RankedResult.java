@@ -0,0 +1,100 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.QuizResult;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Immutable leaderboard view of a quiz result, without the embedded answers.
+ * Equality is by result id.
+ */
+public final class RankedResult {
+
+    /**
+     * Leaderboard order: higher score first, earlier completion breaks ties
+     */
+    public static final Comparator<RankedResult> RANKING = Comparator
+            .comparingInt(RankedResult::getScore).reversed()
+            .thenComparing(RankedResult::getCompletedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(RankedResult::getResultId);
+
+    private final String resultId;
+    private final String userId;
+    private final String username;
+    private final String quizId;
+    private final String quizTitle;
+    private final int score;
+    private final Integer totalQuestions;
+    private final Integer quizTotalMarks;
+    private final Integer timeTakenSeconds;
+    private final LocalDateTime completedAt;
+
+    private RankedResult(QuizResult result) {
+        this.resultId = result.getId();
+        this.userId = result.getUserId();
+        this.username = result.getUserUsername();
+        this.quizId = result.getQuizId();
+        this.quizTitle = result.getQuizTitle();
+        this.score = result.getScore() != null ? result.getScore() : 0;
+        this.totalQuestions = result.getTotalQuestions();
+        this.quizTotalMarks = result.getQuizTotalMarks();
+        this.timeTakenSeconds = result.getTimeTakenSeconds();
+        this.completedAt = result.getCompletedAt();
+    }
+
+    public static RankedResult of(QuizResult result) {
+        return new RankedResult(result);
+    }
+
+    public String getResultId() {
+        return resultId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getQuizId() {
+        return quizId;
+    }
+
+    public String getQuizTitle() {
+        return quizTitle;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public Integer getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public Integer getQuizTotalMarks() {
+        return quizTotalMarks;
+    }
+
+    public Integer getTimeTakenSeconds() {
+        return timeTakenSeconds;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof RankedResult && Objects.equals(resultId, ((RankedResult) other).resultId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(resultId);
+    }
+}
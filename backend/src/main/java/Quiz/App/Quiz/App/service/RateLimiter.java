@@ -0,0 +1,110 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.util.StripedTokenBucket;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets for the unauthenticated submission and leaderboard APIs.
+ *
+ * Each endpoint group has its own striped bucket array and counters.
+ * RateLimitFilter decides the client key and turns a rejection into a 429;
+ * AdminService reads the counters for the metrics endpoint.
+ */
+@Service
+public class RateLimiter {
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.stripes:4096}")
+    private int stripes;
+
+    @Value("${rate-limit.submit.capacity:20}")
+    private int submitCapacity;
+
+    @Value("${rate-limit.submit.refill-per-second:2}")
+    private int submitRefillPerSecond;
+
+    @Value("${rate-limit.leaderboard.capacity:60}")
+    private int leaderboardCapacity;
+
+    @Value("${rate-limit.leaderboard.refill-per-second:20}")
+    private int leaderboardRefillPerSecond;
+
+    private Group submit;
+    private Group leaderboard;
+
+    @PostConstruct
+    public void init() {
+        submit = new Group(new StripedTokenBucket(stripes, submitCapacity, submitRefillPerSecond));
+        leaderboard = new Group(new StripedTokenBucket(stripes, leaderboardCapacity, leaderboardRefillPerSecond));
+    }
+
+    /**
+     * Whether requests to the path are rate limited at all
+     */
+    public boolean isLimited(String path) {
+        return enabled && groupFor(path) != null;
+    }
+
+    /**
+     * Take a token for the client, returning 0 if the request may proceed or
+     * the milliseconds until it may be retried
+     */
+    public long tryAcquire(String path, String clientKey) {
+        Group group = enabled ? groupFor(path) : null;
+        if (group == null) {
+            return 0;
+        }
+        long waitMillis = group.limiter.tryAcquire(clientKey);
+        if (waitMillis > 0) {
+            group.rejected.increment();
+        } else {
+            group.allowed.increment();
+        }
+        return waitMillis;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("submit", submit.getStats(submitCapacity, submitRefillPerSecond));
+        stats.put("leaderboard", leaderboard.getStats(leaderboardCapacity, leaderboardRefillPerSecond));
+        return stats;
+    }
+
+    private Group groupFor(String path) {
+        if (path.equals("/public/quiz/submit") || path.equals("/api/quiz/submit")) {
+            return submit;
+        }
+        if (path.startsWith("/leaderboard/") || path.startsWith("/api/leaderboard/")) {
+            return leaderboard;
+        }
+        return null;
+    }
+
+    private static final class Group {
+        private final StripedTokenBucket limiter;
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        private Group(StripedTokenBucket limiter) {
+            this.limiter = limiter;
+        }
+
+        private Map<String, Object> getStats(int capacity, int refillPerSecond) {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("capacity", capacity);
+            stats.put("refillPerSecond", refillPerSecond);
+            stats.put("allowed", allowed.sum());
+            stats.put("rejected", rejected.sum());
+            return stats;
+        }
+    }
+}
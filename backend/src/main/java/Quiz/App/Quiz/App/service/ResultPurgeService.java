@@ -0,0 +1,409 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.dto.PurgeJobDto;
+import Quiz.App.Quiz.App.entity.QuizResult;
+import Quiz.App.Quiz.App.entity.UserAnswer;
+import Quiz.App.Quiz.App.repository.QuizRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Deletes quiz results together with their answers and derived state.
+ *
+ * Results are removed in batches: one query for a batch of ids, then one
+ * $in delete for their answers and one for the results themselves, so a
+ * cascade costs two round trips per batch instead of one per result.
+ * Cascades up to the sync limit run in the calling request; larger ones run
+ * as a background job on a single purge thread, whose progress can be
+ * polled. A quiz purge also rebuilds the stats of every user who took the
+ * quiz, so it only runs inline when few users are affected. A user's
+ * leaderboard entries are dropped as soon as the job is queued, so their
+ * results disappear from rankings right away. Results still waiting in the
+ * write-behind queue are discarded before anything is counted, so the writer
+ * can't store them, or bring back their stats, after the purge.
+ */
+@Service
+public class ResultPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultPurgeService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+
+    @Autowired
+    private WindowedLeaderboard windowedLeaderboard;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private QuizHistorySummaryService quizHistorySummaryService;
+
+    @Autowired
+    private LeaderboardStatsCounters leaderboardStatsCounters;
+
+    @Autowired
+    private LeaderboardResponseCache leaderboardResponseCache;
+
+    @Autowired
+    private SubmissionWriter submissionWriter;
+
+    @Value("${purge.batch-size:1000}")
+    private int batchSize;
+
+    // Cascades with more results than this run in the background
+    @Value("${purge.sync-limit:1000}")
+    private long syncLimit;
+
+    // Quiz purges affecting more users than this run in the background, one stats rebuild per user
+    @Value("${purge.sync-recompute-limit:50}")
+    private long syncRecomputeLimit;
+
+    @Value("${purge.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${purge.max-finished-jobs:100}")
+    private int maxFinishedJobs;
+
+    private ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final LongAdder inlinePurges = new LongAdder();
+    private final LongAdder backgroundPurges = new LongAdder();
+    private final LongAdder resultsDeleted = new LongAdder();
+    private final LongAdder answersDeleted = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "result-purge");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Delete every result of a user, with answers, stats and history summaries.
+     *
+     * @return the background job, or empty if the purge already finished
+     */
+    public Optional<PurgeJobDto> purgeUser(String userId) {
+        Runnable hideFromLeaderboards = () -> {
+            leaderboardIndex.removeUser(userId);
+            windowedLeaderboard.removeUser(userId);
+        };
+        submissionWriter.discard(result -> userId.equals(result.getUserId()));
+        return purge("USER", userId, Criteria.where("userId").is(userId), () -> true, hideFromLeaderboards, job -> {
+            deleteResults(Criteria.where("userId").is(userId), job, false);
+            userStatsService.delete(userId);
+            quizHistorySummaryService.deleteUser(userId);
+        });
+    }
+
+    /**
+     * Delete every result of a quiz and rebuild the stats of the users who took it.
+     *
+     * @return the background job, or empty if the purge already finished
+     */
+    public Optional<PurgeJobDto> purgeQuiz(String quizId) {
+        Criteria match = Criteria.where("quizId").is(quizId);
+        submissionWriter.discard(result -> quizId.equals(result.getQuizId()));
+        return purge("QUIZ", quizId, match, () -> countUsers(match) <= syncRecomputeLimit, () -> { },
+                job -> purgeQuizResults(quizId, job));
+    }
+
+    /**
+     * Sweep results of quizzes that no longer exist, and answers of results that no longer exist
+     */
+    public PurgeJobDto purgeOrphans() {
+        Job job = new Job("ORPHANS", null, 0);
+        submit(job, this::sweepOrphans);
+        return job.toDto();
+    }
+
+    public Optional<PurgeJobDto> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(Job::toDto);
+    }
+
+    public List<PurgeJobDto> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((Job job) -> job.createdAt).reversed())
+                .map(Job::toDto)
+                .toList();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("batchSize", batchSize);
+        stats.put("syncLimit", syncLimit);
+        stats.put("syncRecomputeLimit", syncRecomputeLimit);
+        stats.put("queued", executor.getQueue().size());
+        stats.put("running", executor.getActiveCount());
+        stats.put("inlinePurges", inlinePurges.sum());
+        stats.put("backgroundPurges", backgroundPurges.sum());
+        stats.put("resultsDeleted", resultsDeleted.sum());
+        stats.put("answersDeleted", answersDeleted.sum());
+        return stats;
+    }
+
+    /**
+     * @param inlineAllowed  checked once the result count is under the sync limit, for work beyond the deletes
+     * @param beforeDelete   runs once the purge is sure to happen, e.g. to hide results from rankings
+     */
+    private Optional<PurgeJobDto> purge(String type, String target, Criteria match, BooleanSupplier inlineAllowed,
+                                        Runnable beforeDelete, JobBody body) {
+        long total = mongoTemplate.count(Query.query(match), QuizResult.class);
+        Job job = new Job(type, target, total);
+        if (total <= syncLimit && inlineAllowed.getAsBoolean()) {
+            inlinePurges.increment();
+            beforeDelete.run();
+            body.run(job);
+            invalidateLeaderboards();
+            return Optional.empty();
+        }
+        submit(job, body);
+        beforeDelete.run();
+        return Optional.of(job.toDto());
+    }
+
+    private void submit(Job job, JobBody body) {
+        evictFinishedJobs();
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, body));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many purge jobs queued, please try again later");
+        }
+        backgroundPurges.increment();
+    }
+
+    private void run(Job job, JobBody body) {
+        job.status = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        try {
+            body.run(job);
+            job.status = "COMPLETED";
+            logger.info("Purge {} {} deleted {} results and {} answers",
+                    job.type, job.target, job.resultsDeleted.get(), job.answersDeleted.get());
+        } catch (RuntimeException e) {
+            // Deleting again is safe, so a failed job can simply be resubmitted
+            job.status = "FAILED";
+            job.error = e.getMessage();
+            logger.error("Purge {} {} failed: {}", job.type, job.target, e.getMessage());
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            invalidateLeaderboards();
+        }
+    }
+
+    private void purgeQuizResults(String quizId, Job job) {
+        Set<String> userIds = deleteResults(Criteria.where("quizId").is(quizId), job, true);
+        // No result of the quiz is left, so its summaries go in one delete
+        quizHistorySummaryService.deleteQuiz(quizId, userIds);
+        for (String userId : userIds) {
+            userStatsService.recompute(userId);
+        }
+    }
+
+    private long countUsers(Criteria match) {
+        TypedAggregation<QuizResult> aggregation = Aggregation.newAggregation(QuizResult.class,
+                Aggregation.match(match),
+                Aggregation.group("userId"),
+                Aggregation.count().as("users"));
+        Document count = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+        return count != null ? ((Number) count.get("users")).longValue() : 0;
+    }
+
+    private void sweepOrphans(Job job) {
+        for (String quizId : mongoTemplate.findDistinct(new Query(), "quizId", QuizResult.class, String.class)) {
+            if (quizId != null && !quizRepository.existsById(quizId)) {
+                purgeQuizResults(quizId, job);
+            }
+        }
+
+        // Answers whose result is gone. Result ids are streamed in order along the quiz_result_id
+        // index, so only one batch of them is held at a time, however many answers there are.
+        Query answerIds = new Query().with(Sort.by("quizResultId")).cursorBatchSize(batchSize);
+        answerIds.fields().include("quizResultId").exclude("_id");
+        Set<String> batch = new HashSet<>();
+        try (Stream<UserAnswer> answers = mongoTemplate.stream(answerIds, UserAnswer.class)) {
+            Iterator<UserAnswer> iterator = answers.iterator();
+            while (iterator.hasNext()) {
+                String resultId = iterator.next().getQuizResultId();
+                if (resultId != null && batch.add(resultId) && batch.size() >= batchSize) {
+                    deleteOrphanedAnswers(batch, job);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleteOrphanedAnswers(batch, job);
+        }
+    }
+
+    private void deleteOrphanedAnswers(Set<String> resultIds, Job job) {
+        Query existing = Query.query(Criteria.where("_id").in(resultIds));
+        existing.fields().include("_id");
+        Set<String> missing = new HashSet<>(resultIds);
+        for (QuizResult result : mongoTemplate.find(existing, QuizResult.class)) {
+            missing.remove(result.getId());
+        }
+        if (!missing.isEmpty()) {
+            long answers = mongoTemplate.remove(Query.query(Criteria.where("quizResultId").in(missing)),
+                    UserAnswer.class).getDeletedCount();
+            job.answersDeleted.addAndGet(answers);
+            answersDeleted.add(answers);
+        }
+    }
+
+    /**
+     * Delete matching results and their answers a batch at a time.
+     *
+     * @return the users whose results were deleted
+     */
+    private Set<String> deleteResults(Criteria match, Job job, boolean removeFromLeaderboards) {
+        Set<String> userIds = new HashSet<>();
+        while (true) {
+            // Each pass deletes what it read, so the same query returns the next batch
+            Query batchQuery = Query.query(match).limit(batchSize);
+            batchQuery.fields().include("_id").include("userId");
+            List<QuizResult> batch = mongoTemplate.find(batchQuery, QuizResult.class);
+            if (batch.isEmpty()) {
+                return userIds;
+            }
+
+            List<String> ids = new ArrayList<>(batch.size());
+            for (QuizResult result : batch) {
+                ids.add(result.getId());
+                if (result.getUserId() != null) {
+                    userIds.add(result.getUserId());
+                }
+            }
+            long answers = mongoTemplate.remove(Query.query(Criteria.where("quizResultId").in(ids)),
+                    UserAnswer.class).getDeletedCount();
+            long results = mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)),
+                    QuizResult.class).getDeletedCount();
+            if (removeFromLeaderboards) {
+                for (String id : ids) {
+                    leaderboardIndex.removeResult(id);
+                    windowedLeaderboard.removeResult(id);
+                }
+            }
+
+            job.resultsDeleted.addAndGet(results);
+            job.answersDeleted.addAndGet(answers);
+            resultsDeleted.add(results);
+            answersDeleted.add(answers);
+        }
+    }
+
+    private void invalidateLeaderboards() {
+        leaderboardStatsCounters.invalidate();
+        leaderboardResponseCache.invalidateAll();
+    }
+
+    private void evictFinishedJobs() {
+        List<Job> finished = jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((Job job) -> job.finishedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - maxFinishedJobs + 1; i++) {
+            jobs.remove(finished.get(i).id);
+        }
+    }
+
+    @FunctionalInterface
+    private interface JobBody {
+        void run(Job job);
+    }
+
+    private static final class Job {
+        private final String id = UUID.randomUUID().toString();
+        private final String type;
+        private final String target;
+        private final long totalResults;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicLong resultsDeleted = new AtomicLong();
+        private final AtomicLong answersDeleted = new AtomicLong();
+        private volatile String status = "QUEUED";
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(String type, String target, long totalResults) {
+            this.type = type;
+            this.target = target;
+            this.totalResults = totalResults;
+        }
+
+        private PurgeJobDto toDto() {
+            PurgeJobDto dto = new PurgeJobDto();
+            dto.setId(id);
+            dto.setType(type);
+            dto.setTarget(target);
+            dto.setStatus(status);
+            dto.setTotalResults(totalResults);
+            dto.setResultsDeleted(resultsDeleted.get());
+            dto.setAnswersDeleted(answersDeleted.get());
+            if ("COMPLETED".equals(status)) {
+                dto.setProgress(1.0);
+            } else if (totalResults > 0) {
+                dto.setProgress(Math.min(1.0, (double) resultsDeleted.get() / totalResults));
+            }
+            dto.setError(error);
+            dto.setCreatedAt(createdAt);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.QuizResult;
+import Quiz.App.Quiz.App.repository.QuizResultRepository;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Persists scored quiz results, either directly or through a write-behind queue.
+ *
+ * In write-behind mode the submission returns as soon as the result is queued.
+ * A single writer thread drains the bounded queue into unordered bulk inserts.
+ * When the queue stays full for the offer timeout the submission is rejected
+ * with 503 so clients back off instead of piling up request threads. Queued
+ * results stay readable by id until they are written, and the queue is flushed
+ * on shutdown.
+ *
+ * Write errors are handled per result: duplicates of an earlier partial write
+ * count as written, and only the rest is retried. Results that still fail go
+ * to a bounded dead-letter queue that is retried periodically, since their
+ * submitter already got a response and they are already ranked. A result that
+ * doesn't fit there is dropped and taken off the in-memory leaderboards again.
+ *
+ * Results are ranked before they are handed over, so a result that fails to
+ * persist, or is rejected, is taken off the leaderboards as well. Purges call
+ * discard() first: it removes the target's queued and dead-lettered results
+ * and waits for the batch being written, so nothing is written after a purge
+ * has started that the purge would miss.
+ */
+@Service
+public class SubmissionWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionWriter.class);
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    @Autowired
+    private QuizResultRepository quizResultRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private QuizHistorySummaryService quizHistorySummaryService;
+
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+
+    @Autowired
+    private WindowedLeaderboard windowedLeaderboard;
+
+    @Autowired
+    private LeaderboardStatsCounters leaderboardStatsCounters;
+
+    @Autowired
+    private LeaderboardResponseCache leaderboardResponseCache;
+
+    @Value("${quiz.submission.write-behind.enabled:false}")
+    private boolean writeBehindEnabled;
+
+    @Value("${quiz.submission.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${quiz.submission.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${quiz.submission.write-behind.offer-timeout-ms:200}")
+    private long offerTimeoutMs;
+
+    @Value("${quiz.submission.write-behind.flush-interval-ms:100}")
+    private long flushIntervalMs;
+
+    @Value("${quiz.submission.write-behind.dead-letter-capacity:10000}")
+    private int deadLetterCapacity;
+
+    @Value("${quiz.submission.write-behind.dead-letter-retry-ms:30000}")
+    private long deadLetterRetryMs;
+
+    private BlockingQueue<QuizResult> queue;
+    // Results whose writes kept failing, retried by the writer thread; they stay in pending meanwhile
+    private BlockingQueue<QuizResult> deadLetters;
+    private long nextDeadLetterRetryMillis;
+    private final Map<String, QuizResult> pending = new ConcurrentHashMap<>();
+    // Held while a batch is written; a result only gets written if it is still pending under it
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final LongAdder batchesWritten = new LongAdder();
+    private final LongAdder resultsWritten = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder statsFailures = new LongAdder();
+    private final AtomicInteger lastBatchSize = new AtomicInteger();
+    private final AtomicInteger maxBatchSize = new AtomicInteger();
+
+    @PostConstruct
+    public void start() {
+        if (!writeBehindEnabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        deadLetters = new ArrayBlockingQueue<>(deadLetterCapacity);
+        running = true;
+        writerThread = new Thread(this::drainLoop, "submission-writer");
+        writerThread.start();
+        logger.info("Submission write-behind enabled (capacity {}, batch size {})", queueCapacity, batchSize);
+    }
+
+    /**
+     * Id for a result about to be persisted, so it can be ranked before it is handed over
+     */
+    public static String newResultId() {
+        return new ObjectId().toHexString();
+    }
+
+    /**
+     * Persist a fully computed result that already has its id and is already ranked.
+     * If it can't be persisted or queued it is taken off the leaderboards again.
+     */
+    public QuizResult persist(QuizResult result) {
+        if (!writeBehindEnabled) {
+            QuizResult saved;
+            try {
+                saved = quizResultRepository.insert(result);
+            } catch (RuntimeException e) {
+                unrank(List.of(result));
+                throw e;
+            }
+            updateAggregates(List.of(saved));
+            return saved;
+        }
+
+        pending.put(result.getId(), result);
+        try {
+            if (running && queue.offer(result, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        rejected.increment();
+        unrank(List.of(result));
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many submissions right now, please retry in a moment");
+    }
+
+    /**
+     * Drop queued and dead-lettered results that are about to be purged, and wait
+     * for the batch being written. Once this returns no matching result that is
+     * queued now will be written.
+     *
+     * @return how many results were discarded
+     */
+    public int discard(Predicate<QuizResult> match) {
+        if (!writeBehindEnabled) {
+            return 0;
+        }
+        List<QuizResult> matched;
+        writeLock.lock();
+        try {
+            matched = pending.values().stream().filter(match).collect(Collectors.toList());
+            matched.forEach(result -> pending.remove(result.getId()));
+            queue.removeIf(match);
+            deadLetters.removeIf(match);
+        } finally {
+            writeLock.unlock();
+        }
+        for (QuizResult result : matched) {
+            leaderboardIndex.removeResult(result.getId());
+            windowedLeaderboard.removeResult(result.getId());
+        }
+        discarded.add(matched.size());
+        return matched.size();
+    }
+
+    /**
+     * Look up a result that is queued but not written yet
+     */
+    public Optional<QuizResult> findPending(String resultId) {
+        return writeBehindEnabled ? Optional.ofNullable(pending.get(resultId)) : Optional.empty();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writerThread == null) {
+            return;
+        }
+        // The writer keeps draining until the queue is empty once running is cleared
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty() || !deadLetters.isEmpty()) {
+            logger.error("Shutting down with {} quiz results not persisted", queue.size() + deadLetters.size());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long batches = batchesWritten.sum();
+        long written = resultsWritten.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", writeBehindEnabled);
+        stats.put("queueDepth", queue != null ? queue.size() : 0);
+        stats.put("queueCapacity", writeBehindEnabled ? queueCapacity : 0);
+        stats.put("batchesWritten", batches);
+        stats.put("resultsWritten", written);
+        stats.put("averageBatchSize", batches > 0 ? (double) written / batches : 0.0);
+        stats.put("lastBatchSize", lastBatchSize.get());
+        stats.put("maxBatchSize", maxBatchSize.get());
+        stats.put("rejected", rejected.sum());
+        stats.put("deadLetterDepth", deadLetters != null ? deadLetters.size() : 0);
+        stats.put("deadLettered", deadLettered.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("discarded", discarded.sum());
+        stats.put("statsFailures", statsFailures.sum());
+        return stats;
+    }
+
+    private void drainLoop() {
+        List<QuizResult> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                QuizResult first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    writeBatch(batch);
+                }
+                if (!deadLetters.isEmpty() && System.currentTimeMillis() >= nextDeadLetterRetryMillis) {
+                    retryDeadLetters();
+                }
+            } catch (InterruptedException e) {
+                // Keep draining; shutdown is signalled through the running flag
+            } catch (Exception e) {
+                // Whether any of the batch was stored is unknown; a retry counts duplicates as written
+                logger.error("Unexpected error in submission writer: {}", e.getMessage(), e);
+                deadLetter(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+        // Last chance before shutdown
+        retryDeadLetters();
+    }
+
+    private void retryDeadLetters() {
+        nextDeadLetterRetryMillis = System.currentTimeMillis() + deadLetterRetryMs;
+        List<QuizResult> retry = new ArrayList<>(batchSize);
+        // Only what is queued now, so results failing again wait for the next round
+        int rounds = (deadLetters.size() + batchSize - 1) / batchSize;
+        for (int i = 0; i < rounds && deadLetters.drainTo(retry, batchSize) > 0; i++) {
+            try {
+                writeBatch(retry);
+            } catch (Exception e) {
+                logger.error("Unexpected error retrying dead-lettered quiz results: {}", e.getMessage(), e);
+                deadLetter(retry);
+            }
+            retry.clear();
+        }
+    }
+
+    /**
+     * Write a batch, retrying only the results that failed; whatever still fails is dead-lettered
+     */
+    private void writeBatch(List<QuizResult> batch) {
+        writeLock.lock();
+        try {
+            // Results discarded by a purge since they were taken from the queue are skipped
+            List<QuizResult> live = batch.stream().filter(result -> pending.containsKey(result.getId()))
+                    .collect(Collectors.toList());
+            if (!live.isEmpty()) {
+                write(live);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(List<QuizResult> batch) {
+        List<QuizResult> remaining = new ArrayList<>(batch);
+        List<QuizResult> written = new ArrayList<>(batch.size());
+        for (int attempt = 1; !remaining.isEmpty(); attempt++) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, QuizResult.class)
+                        .insert(remaining)
+                        .execute();
+                written.addAll(remaining);
+                remaining.clear();
+            } catch (BulkOperationException e) {
+                // Unordered: every insert without an error went in, and a duplicate key
+                // means an earlier attempt already stored that result
+                Set<Integer> failedIndexes = e.getErrors().stream()
+                        .filter(error -> error.getCode() != DUPLICATE_KEY_ERROR)
+                        .map(BulkWriteError::getIndex)
+                        .collect(Collectors.toSet());
+                List<QuizResult> failedResults = new ArrayList<>(failedIndexes.size());
+                for (int i = 0; i < remaining.size(); i++) {
+                    (failedIndexes.contains(i) ? failedResults : written).add(remaining.get(i));
+                }
+                remaining = failedResults;
+                if (!remaining.isEmpty() && !retry(attempt, remaining.size(), e)) {
+                    break;
+                }
+            } catch (Exception e) {
+                if (!retry(attempt, remaining.size(), e)) {
+                    break;
+                }
+            }
+        }
+
+        if (!written.isEmpty()) {
+            recordBatch(written);
+            written.forEach(result -> pending.remove(result.getId()));
+        }
+        if (!remaining.isEmpty()) {
+            deadLetter(remaining);
+        }
+    }
+
+    private boolean retry(int attempt, int size, Exception e) {
+        if (attempt >= MAX_WRITE_ATTEMPTS) {
+            logger.error("Dead-lettering {} quiz results after {} failed writes: {}", size, attempt, e.getMessage());
+            return false;
+        }
+        logger.warn("Bulk write of {} quiz results failed (attempt {}), retrying: {}", size, attempt, e.getMessage());
+        try {
+            Thread.sleep(100L * attempt);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    private void deadLetter(List<QuizResult> unwritten) {
+        List<QuizResult> overflow = new ArrayList<>();
+        for (QuizResult result : unwritten) {
+            if (deadLetters.offer(result)) {
+                deadLettered.increment();
+            } else {
+                overflow.add(result);
+            }
+        }
+        if (overflow.isEmpty()) {
+            return;
+        }
+        unrank(overflow);
+        dropped.add(overflow.size());
+        logger.error("Dead-letter queue full, dropped {} quiz results", overflow.size());
+    }
+
+    // Never stored, so they must not stay ranked either
+    private void unrank(List<QuizResult> results) {
+        for (QuizResult result : results) {
+            if (result.getId() == null) {
+                continue;
+            }
+            pending.remove(result.getId());
+            leaderboardIndex.removeResult(result.getId());
+            windowedLeaderboard.removeResult(result.getId());
+        }
+        leaderboardStatsCounters.invalidate();
+        leaderboardResponseCache.invalidateAll();
+    }
+
+    private void recordBatch(List<QuizResult> batch) {
+        updateAggregates(batch);
+        int size = batch.size();
+        batchesWritten.increment();
+        resultsWritten.add(size);
+        lastBatchSize.set(size);
+        maxBatchSize.accumulateAndGet(size, Math::max);
+    }
+
+    private void updateAggregates(List<QuizResult> written) {
+        // The results are already stored, so a stats failure must not fail the submission
+        try {
+            userStatsService.recordAll(written);
+        } catch (Exception e) {
+            statsFailures.increment();
+            logger.warn("Could not update user_stats for {} quiz results: {}", written.size(), e.getMessage());
+        }
+        try {
+            quizHistorySummaryService.recordAll(written);
+        } catch (Exception e) {
+            statsFailures.increment();
+            logger.warn("Could not update history summaries for {} quiz results: {}", written.size(), e.getMessage());
+        }
+    }
+}
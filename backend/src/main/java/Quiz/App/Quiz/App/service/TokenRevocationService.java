@@ -0,0 +1,191 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.TokenRevocation;
+import Quiz.App.Quiz.App.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revocation list for stateless JWTs, kept in MongoDB and mirrored in memory.
+ *
+ * A single token is revoked by its id until it would have expired anyway.
+ * All of a user's tokens are revoked with a "not before" time: tokens issued
+ * at or before it are rejected, so a role change or delete invalidates the
+ * role claim in tokens already handed out. Token issue times only have
+ * second precision, so a token issued in the same second as the revocation
+ * is rejected too.
+ *
+ * Revocations are written to token_revocations and applied locally at once.
+ * Every node loads the collection before serving requests and then polls it
+ * for new entries, so a revocation reaches other nodes within the refresh
+ * interval and is never lost on restart. MongoDB expires entries once every
+ * token they could match has expired.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // Entries written just before the last poll may become visible after it
+    private static final long POLL_OVERLAP_MILLIS = 60_000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${jwt.expiration}")
+    private Long expiration;
+
+    @Value("${security.token-revocation.refresh-seconds:15}")
+    private long refreshSeconds;
+
+    // Token id -> expiry of that token, in epoch millis
+    private final ConcurrentHashMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // User id -> tokens issued at or before this second are revoked
+    private final ConcurrentHashMap<String, Long> notBeforeSeconds = new ConcurrentHashMap<>();
+
+    private ScheduledThreadPoolExecutor refresher;
+    // Server time of the newest entry loaded so far
+    private volatile long lastRevokedAtMillis;
+    private volatile long lastRefreshMillis;
+    private final LongAdder refreshFailures = new LongAdder();
+
+    // Loaded before the application serves requests; a node that can't read the list doesn't start
+    @PostConstruct
+    public void start() {
+        refresh();
+        refresher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                refreshFailures.increment();
+                logger.warn("Token revocation refresh failed: {}", e.getMessage());
+            }
+        }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Revoke one token; it must carry an id and an expiry
+     */
+    public void revokeToken(Claims claims) {
+        if (claims.getId() == null || claims.getExpiration() == null) {
+            throw new IllegalArgumentException("Token has no id or expiry and can't be revoked");
+        }
+        revokedTokens.put(claims.getId(), claims.getExpiration().getTime());
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is("token:" + claims.getId())),
+                new Update()
+                        .set("tokenId", claims.getId())
+                        .set("userId", claims.get(JwtUtil.CLAIM_USER_ID, String.class))
+                        .set("expiresAt", claims.getExpiration())
+                        .currentDate("revokedAt"),
+                TokenRevocation.class);
+        purgeExpired();
+    }
+
+    /**
+     * Revoke every token issued to a user up to now
+     */
+    public void revokeUser(String userId) {
+        if (userId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        notBeforeSeconds.merge(userId, now / 1000, Math::max);
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is("user:" + userId)),
+                new Update()
+                        .set("userId", userId)
+                        .max("notBefore", now / 1000)
+                        .max("expiresAt", new Date(now + expiration))
+                        .currentDate("revokedAt"),
+                TokenRevocation.class);
+        purgeExpired();
+    }
+
+    /**
+     * Whether verified claims belong to a token that has since been revoked
+     */
+    public boolean isRevoked(Claims claims) {
+        if (claims.getId() != null && revokedTokens.containsKey(claims.getId())) {
+            return true;
+        }
+        String userId = claims.get(JwtUtil.CLAIM_USER_ID, String.class);
+        if (userId == null) {
+            return false;
+        }
+        Long notBefore = notBeforeSeconds.get(userId);
+        Date issuedAt = claims.getIssuedAt();
+        return notBefore != null && (issuedAt == null || issuedAt.getTime() / 1000 <= notBefore);
+    }
+
+    /**
+     * Load revocations written since the last refresh, by this node or any other
+     */
+    public synchronized void refresh() {
+        Query query = Query.query(Criteria.where("expiresAt").gt(new Date()));
+        if (lastRevokedAtMillis > 0) {
+            query.addCriteria(Criteria.where("revokedAt").gte(new Date(lastRevokedAtMillis - POLL_OVERLAP_MILLIS)));
+        }
+        long newest = lastRevokedAtMillis;
+        for (TokenRevocation revocation : mongoTemplate.find(query, TokenRevocation.class)) {
+            if (revocation.getTokenId() != null) {
+                revokedTokens.put(revocation.getTokenId(), revocation.getExpiresAt().getTime());
+            }
+            if (revocation.getNotBefore() != null && revocation.getUserId() != null) {
+                notBeforeSeconds.merge(revocation.getUserId(), revocation.getNotBefore(), Math::max);
+            }
+            if (revocation.getRevokedAt() != null) {
+                newest = Math.max(newest, revocation.getRevokedAt().getTime());
+            }
+        }
+        lastRevokedAtMillis = newest;
+        lastRefreshMillis = System.currentTimeMillis();
+        purgeExpired();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("revokedTokens", revokedTokens.size());
+        stats.put("revokedUsers", notBeforeSeconds.size());
+        stats.put("refreshSeconds", refreshSeconds);
+        stats.put("lastRefreshMillis", lastRefreshMillis);
+        stats.put("refreshFailures", refreshFailures.sum());
+        return stats;
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+        // Every token issued before the cutoff has expired by now
+        long cutoffSeconds = (now - expiration) / 1000;
+        notBeforeSeconds.values().removeIf(notBefore -> notBefore < cutoffSeconds);
+    }
+}
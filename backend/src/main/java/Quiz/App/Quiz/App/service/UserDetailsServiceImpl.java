@@ -3,21 +3,141 @@ package Quiz.App.Quiz.App.service;
 import Quiz.App.Quiz.App.entity.User;
 import Quiz.App.Quiz.App.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads users for authentication through a bounded, TTL-based principal cache.
+ *
+ * Users whose role changes or who are deleted are invalidated explicitly by
+ * AdminService; the TTL bounds staleness for changes made on other nodes.
+ * Unknown usernames are never cached. Cached users are shared between
+ * requests and must not be mutated.
+ */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     
     @Autowired
     private UserRepository userRepository;
     
+    @Value("${security.principal-cache.max-entries:10000}")
+    private int maxEntries;
+    
+    @Value("${security.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    private final ConcurrentHashMap<String, CachedPrincipal> principals = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        CachedPrincipal cached = principals.get(username);
+        if (cached != null && System.nanoTime() - cached.loadedAtNanos <= TimeUnit.SECONDS.toNanos(ttlSeconds)) {
+            hits.increment();
+            return cached.user;
+        }
+        
+        misses.increment();
+        long loadVersion = version.get();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        // A user invalidated while we were reading it is returned but not cached. The version
+        // is checked again after the put in case the invalidation landed in between.
+        if (version.get() == loadVersion) {
+            CachedPrincipal loaded = new CachedPrincipal(user);
+            principals.put(username, loaded);
+            if (version.get() != loadVersion) {
+                principals.remove(username, loaded);
+            } else {
+                evictIfNeeded();
+            }
+        }
         return user;
     }
+    
+    /**
+     * Store a rehashed password, called by the authentication provider after a successful login
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        User savedUser = userRepository.save(user);
+        invalidate(savedUser.getUsername());
+        return savedUser;
+    }
+    
+    /**
+     * Drop a user after their role, password or existence changed
+     */
+    public void invalidate(String username) {
+        version.incrementAndGet();
+        if (username != null) {
+            principals.remove(username);
+        }
+        invalidations.increment();
+    }
+    
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", principals.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+    
+    private void evictIfNeeded() {
+        // One thread sweeps at a time; the others just insert and carry on
+        if (principals.size() <= maxEntries || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Sweep down to 90% so the next full scan is a tenth of the cache's misses away
+            int target = maxEntries - Math.max(1, maxEntries / 10);
+            long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+            long now = System.nanoTime();
+            principals.values().removeIf(cached -> now - cached.loadedAtNanos > ttlNanos);
+            // Still full of live entries: drop arbitrary ones, they are simply loaded again
+            Iterator<String> usernames = principals.keySet().iterator();
+            while (principals.size() > target && usernames.hasNext()) {
+                usernames.next();
+                usernames.remove();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+    
+    private static final class CachedPrincipal {
+        private final User user;
+        private final long loadedAtNanos = System.nanoTime();
+        
+        private CachedPrincipal(User user) {
+            this.user = user;
+        }
+    }
 }
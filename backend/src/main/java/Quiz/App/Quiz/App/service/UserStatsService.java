@@ -0,0 +1,220 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.QuizResult;
+import Quiz.App.Quiz.App.entity.UserStats;
+import Quiz.App.Quiz.App.repository.UserStatsRepository;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the user_stats collection: one document per user with attempts,
+ * total score, best score and last activity.
+ *
+ * Every persisted result is folded in with a single $inc/$max upsert per user,
+ * so leaderboards and admin views read a user's totals with one batched $in
+ * query instead of counting and aggregating quiz_results per row. The
+ * collection is backfilled from quiz_results once, before the application
+ * serves requests, and a stored marker records that the backfill completed.
+ */
+@Service
+public class UserStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStatsService.class);
+
+    private static final String COLLECTION = "user_stats";
+    private static final String BACKFILL = "user_stats";
+
+    // Results completed this close to a rebuild may have been counted by other nodes meanwhile
+    private static final Duration REBUILD_OVERLAP = Duration.ofMinutes(5);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    @Autowired
+    private BackfillMarkerService backfillMarkerService;
+
+    /**
+     * Fold newly written results into their users' stats, one upsert per user
+     */
+    public void recordAll(List<QuizResult> results) {
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        for (QuizResult result : results) {
+            if (result.getUserId() != null) {
+                deltas.computeIfAbsent(result.getUserId(), id -> new Delta()).add(result);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserStats.class);
+        deltas.forEach((userId, delta) -> {
+            Update update = new Update()
+                    .inc("attempts", delta.attempts)
+                    .inc("totalScore", delta.totalScore)
+                    .max("bestScore", delta.bestScore);
+            if (delta.username != null) {
+                update.set("username", delta.username);
+            }
+            if (delta.lastActivity != null) {
+                update.max("lastActivity", delta.lastActivity);
+            }
+            bulk.upsert(Query.query(Criteria.where("_id").is(userId)), update);
+        });
+        bulk.execute();
+    }
+
+    public void record(QuizResult result) {
+        recordAll(List.of(result));
+    }
+
+    /**
+     * Stats for a set of users in one query, keyed by user id
+     */
+    public Map<String, UserStats> getStats(Collection<String> userIds) {
+        List<String> ids = userIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<String, UserStats> stats = new HashMap<>();
+        for (UserStats userStats : userStatsRepository.findAllById(ids)) {
+            stats.put(userStats.getUserId(), userStats);
+        }
+        return stats;
+    }
+
+    /**
+     * The user with the most attempts, read from the top of the attempts index
+     */
+    public Optional<UserStats> findMostActive() {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "attempts")).limit(1);
+        return Optional.ofNullable(mongoTemplate.findOne(query, UserStats.class));
+    }
+
+    public Map<String, UserStats> getAllStats() {
+        Map<String, UserStats> stats = new HashMap<>();
+        for (UserStats userStats : userStatsRepository.findAll()) {
+            stats.put(userStats.getUserId(), userStats);
+        }
+        return stats;
+    }
+
+    /**
+     * Rebuild one user's stats from quiz_results, e.g. after a result was deleted
+     */
+    public void recompute(String userId) {
+        TypedAggregation<QuizResult> aggregation = Aggregation.newAggregation(QuizResult.class,
+                Aggregation.match(Criteria.where("userId").is(userId)),
+                groupByUser());
+        AggregationResults<UserStats> results = mongoTemplate.aggregate(aggregation, UserStats.class);
+        UserStats stats = results.getUniqueMappedResult();
+        if (stats != null) {
+            userStatsRepository.save(stats);
+        } else {
+            userStatsRepository.deleteById(userId);
+        }
+    }
+
+    public void delete(String userId) {
+        userStatsRepository.deleteById(userId);
+    }
+
+    // Before the application serves requests, so no submission on this node races the rebuild
+    @PostConstruct
+    public void backfillOnStartup() {
+        try {
+            if (backfillMarkerService.isCompleted(BACKFILL)) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            rebuildAll();
+            long duration = System.currentTimeMillis() - start;
+            backfillMarkerService.markCompleted(BACKFILL, duration);
+            logger.info("Backfilled user_stats from quiz_results in {} ms", duration);
+        } catch (Exception e) {
+            logger.error("user_stats backfill failed, retrying on next startup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute every user's stats server side in a single $group/$merge pass.
+     *
+     * The $merge replaces whole documents, so an $inc from another node that
+     * lands while it runs can be overwritten. Users with results completed
+     * since shortly before the rebuild are therefore recomputed once more.
+     */
+    public void rebuildAll() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(REBUILD_OVERLAP);
+        MergeOperation merge = Aggregation.merge()
+                .intoCollection(COLLECTION)
+                .whenMatched(MergeOperation.WhenDocumentsMatch.replaceDocument())
+                .build();
+        TypedAggregation<QuizResult> aggregation = Aggregation.newAggregation(QuizResult.class,
+                groupByUser(), merge);
+        mongoTemplate.aggregate(aggregation, Document.class);
+
+        mongoTemplate.findDistinct(Query.query(Criteria.where("completedAt").gte(cutoff)),
+                        "userId", QuizResult.class, String.class)
+                .forEach(this::recompute);
+    }
+
+    private static GroupOperation groupByUser() {
+        return Aggregation.group("userId")
+                .last("userUsername").as("username")
+                .count().as("attempts")
+                .sum("score").as("total_score")
+                .max("score").as("best_score")
+                .max("completedAt").as("last_activity");
+    }
+
+    private static final class Delta {
+        private String username;
+        private long attempts;
+        private long totalScore;
+        private int bestScore;
+        private LocalDateTime lastActivity;
+
+        private void add(QuizResult result) {
+            int score = result.getScore() != null ? result.getScore() : 0;
+            attempts++;
+            totalScore += score;
+            bestScore = attempts == 1 ? score : Math.max(bestScore, score);
+            if (result.getUserUsername() != null) {
+                username = result.getUserUsername();
+            }
+            if (result.getCompletedAt() != null
+                    && (lastActivity == null || result.getCompletedAt().isAfter(lastActivity))) {
+                lastActivity = result.getCompletedAt();
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.QuizResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Time-window leaderboards served from a ring of per-day top-K buckets.
+ *
+ * Each calendar day keeps only its best results. A "last N days" board is a
+ * k-way merge of the N+1 newest buckets, and a day that falls out of the
+ * ring is simply overwritten when its slot is reused. A bucket that had to
+ * drop results remembers the best one it dropped; when a merged page would
+ * reach that far down, top() returns empty and the caller queries MongoDB.
+ */
+@Service
+public class WindowedLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(WindowedLeaderboard.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${leaderboard.window.enabled:true}")
+    private boolean enabled;
+
+    // Longest window that can be served, in days before today
+    @Value("${leaderboard.window.max-days:30}")
+    private int maxDays;
+
+    @Value("${leaderboard.window.bucket-size:1000}")
+    private int bucketSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private DayBucket[] ring;
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    // Results deleted while the initial build is still streaming must not come back
+    private final Set<String> removedDuringBuild = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder served = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(this::build, "leaderboard-window-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    private void build() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            ring = new DayBucket[maxDays + 1];
+            building = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Query query = new Query(Criteria.where("completedAt").gte(windowStart(maxDays)));
+        query.fields().exclude("answers");
+        try (Stream<QuizResult> results = mongoTemplate.stream(query, QuizResult.class)) {
+            results.filter(result -> !removedDuringBuild.contains(result.getId()))
+                    .forEach(this::record);
+            ready = true;
+            logger.info("Windowed leaderboard built for the last {} days in {} ms",
+                    maxDays, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Windowed leaderboard build failed, time-window boards will query MongoDB: {}", e.getMessage());
+        } finally {
+            building = false;
+            removedDuringBuild.clear();
+        }
+    }
+
+    /**
+     * First instant covered by a "last N days" board: midnight N days ago
+     */
+    public LocalDateTime windowStart(int days) {
+        return LocalDate.now().minusDays(days).atStartOfDay();
+    }
+
+    public void record(QuizResult result) {
+        if (!enabled || result.getCompletedAt() == null) {
+            return;
+        }
+        long day = result.getCompletedAt().toLocalDate().toEpochDay();
+        lock.writeLock().lock();
+        try {
+            if (ring == null || day < LocalDate.now().toEpochDay() - maxDays) {
+                return;
+            }
+            int slot = (int) Math.floorMod(day, (long) ring.length);
+            DayBucket bucket = ring[slot];
+            if (bucket == null || bucket.epochDay < day) {
+                // The slot still holds a day that has left the window
+                bucket = new DayBucket(day);
+                ring[slot] = bucket;
+            } else if (bucket.epochDay > day) {
+                return;
+            }
+            bucket.add(RankedResult.of(result), bucketSize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeResult(String resultId) {
+        if (building) {
+            removedDuringBuild.add(resultId);
+        }
+        lock.writeLock().lock();
+        try {
+            if (ring != null) {
+                for (DayBucket bucket : ring) {
+                    if (bucket != null) {
+                        bucket.remove(resultId);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(String userId) {
+        lock.writeLock().lock();
+        try {
+            if (ring != null) {
+                for (DayBucket bucket : ring) {
+                    if (bucket != null) {
+                        bucket.removeUser(userId);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Best results since windowStart(days), or empty if the buckets cannot
+     * answer exactly and MongoDB has to be queried instead
+     */
+    public Optional<List<RankedResult>> top(int days, int limit) {
+        if (!ready || days < 0 || days > maxDays) {
+            fallbacks.increment();
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            long today = LocalDate.now().toEpochDay();
+            List<DayBucket> window = new ArrayList<>();
+            for (long day = today - days; day <= today; day++) {
+                DayBucket bucket = ring[(int) Math.floorMod(day, (long) ring.length)];
+                if (bucket != null && bucket.epochDay == day) {
+                    window.add(bucket);
+                }
+            }
+
+            List<RankedResult> merged = merge(window, limit);
+
+            // Exact only if every dropped result ranks below the last entry we return
+            boolean exact = true;
+            for (DayBucket bucket : window) {
+                if (bucket.bestDropped != null && (merged.size() < limit
+                        || RankedResult.RANKING.compare(bucket.bestDropped, merged.get(merged.size() - 1)) < 0)) {
+                    exact = false;
+                    break;
+                }
+            }
+            if (!exact) {
+                fallbacks.increment();
+                return Optional.empty();
+            }
+            served.increment();
+            return Optional.of(merged);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            int buckets = 0;
+            int entries = 0;
+            if (ring != null) {
+                for (DayBucket bucket : ring) {
+                    if (bucket != null) {
+                        buckets++;
+                        entries += bucket.entries.size();
+                    }
+                }
+            }
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("enabled", enabled);
+            stats.put("ready", ready);
+            stats.put("maxDays", maxDays);
+            stats.put("bucketSize", bucketSize);
+            stats.put("buckets", buckets);
+            stats.put("entries", entries);
+            stats.put("served", served.sum());
+            stats.put("fallbacks", fallbacks.sum());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<RankedResult> merge(List<DayBucket> buckets, int limit) {
+        // Each bucket is already sorted, so only the head of each one is compared
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> RankedResult.RANKING.compare(a.head, b.head));
+        for (DayBucket bucket : buckets) {
+            Iterator<RankedResult> iterator = bucket.entries.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Cursor(iterator));
+            }
+        }
+
+        List<RankedResult> merged = new ArrayList<>(Math.min(limit, 64));
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            merged.add(cursor.head);
+            if (cursor.iterator.hasNext()) {
+                cursor.head = cursor.iterator.next();
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static final class DayBucket {
+        private final long epochDay;
+        private final TreeSet<RankedResult> entries = new TreeSet<>(RankedResult.RANKING);
+        // The ranking can't tell two copies of one result apart when their timestamps differ,
+        // e.g. a live submission and the same result streamed back from MongoDB during the build
+        private final Map<String, RankedResult> byResultId = new HashMap<>();
+        // Best result that no longer fits; everything ranked above it is kept
+        private RankedResult bestDropped;
+
+        private DayBucket(long epochDay) {
+            this.epochDay = epochDay;
+        }
+
+        private void add(RankedResult entry, int capacity) {
+            if (entry.getResultId() == null || byResultId.containsKey(entry.getResultId())) {
+                return;
+            }
+            if (bestDropped != null && RankedResult.RANKING.compare(entry, bestDropped) > 0) {
+                return;
+            }
+            entries.add(entry);
+            byResultId.put(entry.getResultId(), entry);
+            if (entries.size() > capacity) {
+                RankedResult dropped = entries.pollLast();
+                byResultId.remove(dropped.getResultId());
+                if (bestDropped == null || RankedResult.RANKING.compare(dropped, bestDropped) < 0) {
+                    bestDropped = dropped;
+                }
+            }
+        }
+
+        private void remove(String resultId) {
+            RankedResult entry = byResultId.remove(resultId);
+            if (entry != null) {
+                entries.remove(entry);
+            }
+        }
+
+        private void removeUser(String userId) {
+            entries.removeIf(entry -> userId.equals(entry.getUserId()));
+            byResultId.values().removeIf(entry -> userId.equals(entry.getUserId()));
+        }
+    }
+
+    private static final class Cursor {
+        private final Iterator<RankedResult> iterator;
+        private RankedResult head;
+
+        private Cursor(Iterator<RankedResult> iterator) {
+            this.iterator = iterator;
+            this.head = iterator.next();
+        }
+    }
+}
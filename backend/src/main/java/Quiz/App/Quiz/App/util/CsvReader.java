@@ -0,0 +1,133 @@
+package Quiz.App.Quiz.App.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 CSV reader: one record at a time, never the whole input.
+ *
+ * Fields may be quoted, with "" for a literal quote and line breaks allowed
+ * inside quotes. Records end at LF or CRLF. A record longer than the limit
+ * fails instead of growing without bound: the rest of it is read without
+ * being kept and a MalformedRecordException is thrown, after which reading
+ * resumes at the next record.
+ */
+public class CsvReader {
+
+    private final Reader reader;
+    private final int maxRecordChars;
+    private int peeked = -2;
+    private boolean started;
+
+    /**
+     * @param reader         source, ideally buffered
+     * @param maxRecordChars longest record accepted, in characters
+     */
+    public CsvReader(Reader reader, int maxRecordChars) {
+        this.reader = reader;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    /**
+     * Next record's fields, or null at the end of the input
+     *
+     * @throws MalformedRecordException if the record is too long or has an unterminated quote;
+     *                                  the record is skipped and the next call reads the one after it
+     */
+    public List<String> readRecord() throws IOException {
+        if (!started) {
+            started = true;
+            // Spreadsheet exports often start with a byte order mark
+            if (peek() == '\uFEFF') {
+                read();
+            }
+        }
+        if (peek() == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldEmpty = true;
+        // Once over the limit, parsing goes on without keeping anything to find where the record ends
+        boolean tooLong = false;
+        int length = 0;
+        while (true) {
+            int c = read();
+            // The line break that ends the record doesn't count towards the limit
+            boolean end = c == -1 || !quoted && (c == '\n' || c == '\r' && peek() == '\n');
+            if (!end && !tooLong && ++length > maxRecordChars) {
+                tooLong = true;
+                fields.clear();
+                field.setLength(0);
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new MalformedRecordException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append(field, '"', tooLong);
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    append(field, c, tooLong);
+                }
+            } else if (c == '"' && fieldEmpty) {
+                quoted = true;
+                fieldEmpty = false;
+            } else if (c == ',') {
+                if (!tooLong) {
+                    fields.add(field.toString());
+                }
+                field.setLength(0);
+                fieldEmpty = true;
+            } else if (end) {
+                if (c == '\r') {
+                    read();
+                }
+                if (tooLong) {
+                    throw new MalformedRecordException("Record longer than " + maxRecordChars + " characters");
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                append(field, c, tooLong);
+                fieldEmpty = false;
+            }
+        }
+    }
+
+    private static void append(StringBuilder field, int c, boolean discard) {
+        if (!discard) {
+            field.append((char) c);
+        }
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = -2;
+        return c;
+    }
+
+    /**
+     * A record that could not be read; the reader has already moved past it
+     */
+    public static class MalformedRecordException extends IOException {
+        public MalformedRecordException(String message) {
+            super(message);
+        }
+    }
+}
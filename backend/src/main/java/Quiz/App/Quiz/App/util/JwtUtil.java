@@ -1,73 +1,203 @@
 package Quiz.App.Quiz.App.util;
 
+import Quiz.App.Quiz.App.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies JWTs.
+ *
+ * The signing key and parser are built once. Verified claims are cached by
+ * the SHA-256 digest of the token until the token expires, so a client that
+ * repeats the same token skips signature verification and JSON parsing.
+ * Only tokens that passed verification are ever cached.
+ *
+ * Tokens carry the user id and role, so requests can be authenticated from
+ * the claims alone; revocation is checked separately by TokenRevocationService.
+ */
 @Component
 public class JwtUtil {
-    
+
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+
     @Value("${jwt.secret}")
     private String secret;
-    
+
     @Value("${jwt.expiration}")
     private Long expiration;
-    
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+
+    @Value("${jwt.claims-cache.max-entries:10000}")
+    private int claimsCacheMaxEntries;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    private final ConcurrentHashMap<String, Claims> verifiedClaims = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
-    
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
-    
+
     public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
-    
+
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseToken(token);
         return claimsResolver.apply(claims);
     }
-    
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+
+    /**
+     * Verify a token once and return its claims, from the cache when it was seen before.
+     * Throws a JwtException if the token is malformed, forged or expired.
+     */
+    public Claims parseToken(String token) {
+        String digest = digest(token);
+        Claims cached = verifiedClaims.get(digest);
+        if (cached != null) {
+            if (!isExpired(cached)) {
+                cacheHits.increment();
+                return cached;
+            }
+            verifiedClaims.remove(digest, cached);
+        }
+
+        cacheMisses.increment();
+        // The parser rejects expired tokens, so only live claims reach the cache
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(digest, claims);
+            evictIfNeeded();
+        }
+        return claims;
     }
-    
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
     }
-    
+
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        // Enough to authenticate requests from the token alone, without a user lookup
+        if (userDetails instanceof User user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLE, user.getRole().name());
+        }
         return createToken(claims, userDetails.getUsername());
     }
-    
+
+    /**
+     * Principal rebuilt from verified claims, or null for older tokens without id and role
+     */
+    public User principalFrom(Claims claims) {
+        String userId = claims.get(CLAIM_USER_ID, String.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(claims.getSubject());
+        user.setRole(User.Role.valueOf(role));
+        user.setCreatedAt(null);
+        return user;
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .claims(claims)
                 .subject(subject)
+                .id(UUID.randomUUID().toString())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), Jwts.SIG.HS256)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
-    
+
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateClaims(parseToken(token), userDetails);
+    }
+
+    /**
+     * Check already verified claims against the user they claim to be
+     */
+    public boolean validateClaims(Claims claims, UserDetails userDetails) {
+        return claims.getSubject() != null
+                && claims.getSubject().equals(userDetails.getUsername())
+                && !isExpired(claims);
+    }
+
+    public Map<String, Object> getStats() {
+        long hits = cacheHits.sum();
+        long misses = cacheMisses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", verifiedClaims.size());
+        stats.put("maxEntries", claimsCacheMaxEntries);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        return stats;
+    }
+
+    private void evictIfNeeded() {
+        // One thread sweeps at a time; the others just insert and carry on
+        if (verifiedClaims.size() <= claimsCacheMaxEntries || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Sweep down to 90% so the next full scan is a tenth of the cache's misses away
+            int target = claimsCacheMaxEntries - Math.max(1, claimsCacheMaxEntries / 10);
+            verifiedClaims.values().removeIf(JwtUtil::isExpired);
+            // Still full of live tokens: drop arbitrary entries, they are simply verified again
+            Iterator<String> keys = verifiedClaims.keySet().iterator();
+            while (verifiedClaims.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -0,0 +1,101 @@
+package Quiz.App.Quiz.App.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free token-bucket rate limiter over a fixed array of striped buckets.
+ *
+ * Keys are hashed onto one of the stripes, so memory stays fixed however
+ * many clients there are; two keys that share a stripe share its budget,
+ * which only ever makes the limit stricter. Each bucket is one long holding
+ * the last refill time in milliseconds (upper 42 bits) and the remaining
+ * milli-tokens (lower 22 bits), updated with a single CAS. Buckets are
+ * spaced a cache line apart so busy stripes don't contend with neighbours.
+ */
+public class StripedTokenBucket {
+
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI = 1000;
+    // 8 longs per 64-byte cache line
+    private static final int STRIDE = 8;
+
+    private final AtomicLongArray buckets;
+    private final int stripeMask;
+    private final long capacity;
+    private final long refillPerSecond;
+    private final long origin;
+
+    /**
+     * @param stripes         number of buckets, rounded up to a power of two
+     * @param capacity        burst size in tokens, at most 4194
+     * @param refillPerSecond tokens added back per second
+     */
+    public StripedTokenBucket(int stripes, int capacity, int refillPerSecond) {
+        if (capacity < 1 || capacity * MILLI > TOKEN_MASK) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + TOKEN_MASK / MILLI);
+        }
+        if (refillPerSecond < 1) {
+            throw new IllegalArgumentException("Refill rate must be at least 1 per second");
+        }
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.buckets = new AtomicLongArray(size * STRIDE);
+        this.stripeMask = size - 1;
+        this.capacity = capacity * MILLI;
+        // Milli-tokens per millisecond equals tokens per second
+        this.refillPerSecond = refillPerSecond;
+        // Times are stored relative to this, offset by one so 0 means "never used"
+        this.origin = System.currentTimeMillis() - 1;
+    }
+
+    /**
+     * Take one token for the key.
+     *
+     * @return 0 if a token was taken, otherwise milliseconds until one is available
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.currentTimeMillis());
+    }
+
+    public long tryAcquire(String key, long nowMillis) {
+        int index = stripe(key) * STRIDE;
+        long now = Math.max(1, nowMillis - origin);
+        while (true) {
+            long state = buckets.get(index);
+            long available = available(state, now);
+            if (available < MILLI) {
+                return (MILLI - available + refillPerSecond - 1) / refillPerSecond;
+            }
+            // A thread with an older clock reading must not move the refill time backwards
+            long stamp = Math.max(now, state >>> TOKEN_BITS);
+            long next = (stamp << TOKEN_BITS) | (available - MILLI);
+            if (buckets.compareAndSet(index, state, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private long available(long state, long now) {
+        if (state == 0) {
+            return capacity;
+        }
+        long last = state >>> TOKEN_BITS;
+        long tokens = state & TOKEN_MASK;
+        long elapsed = now - last;
+        if (elapsed <= 0) {
+            return tokens;
+        }
+        // Clamped first so the multiplication can't overflow after long idle periods
+        long refill = Math.min(elapsed, capacity / refillPerSecond + 1) * refillPerSecond;
+        return Math.min(capacity, tokens + refill);
+    }
+
+    private int stripe(String key) {
+        int hash = key.hashCode();
+        // Spread the bits so keys that differ only in their last characters land apart
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return hash & stripeMask;
+    }
+}
@@ -0,0 +1,160 @@
+package Quiz.App.Quiz.App.benchmark;
+
+import Quiz.App.Quiz.App.entity.Question;
+import Quiz.App.Quiz.App.entity.UserAnswer;
+import Quiz.App.Quiz.App.service.AnswerKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compiled AnswerKey against the original per-question
+ * String.equals scoring loop.
+ *
+ * Submissions still build one UserAnswer per question after scoring, so the
+ * submission pair does that on both sides and measures what a request costs.
+ * The scoring pair leaves the UserAnswers out on both sides and measures the
+ * scoring alone.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=Quiz.App.Quiz.App.benchmark.AnswerKeyScoringBenchmark
+ * Add "-prof gc" through JMH options to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnswerKeyScoringBenchmark {
+
+    private static final String[] OPTIONS = {"A", "B", "C", "D"};
+
+    @Param({"10", "100", "1000"})
+    private int questionCount;
+
+    private List<Question> questions;
+    private AnswerKey answerKey;
+    private Map<String, String> answers;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        questions = new ArrayList<>(questionCount);
+        answers = new HashMap<>();
+        for (int i = 0; i < questionCount; i++) {
+            Question question = new Question();
+            question.setId(String.format("%024x", i));
+            question.setCorrectAnswer(OPTIONS[random.nextInt(4)]);
+            question.setMarks(1 + random.nextInt(5));
+            questions.add(question);
+
+            // Roughly 10% of the questions are skipped
+            if (random.nextInt(10) != 0) {
+                answers.put(question.getId(), OPTIONS[random.nextInt(4)]);
+            }
+        }
+        answerKey = AnswerKey.compile(questions);
+    }
+
+    @Benchmark
+    public void legacySubmission(Blackhole blackhole) {
+        int score = 0;
+        int correctAnswers = 0;
+        int wrongAnswers = 0;
+        List<UserAnswer> userAnswers = new ArrayList<>();
+
+        for (Question question : questions) {
+            UserAnswer userAnswer = new UserAnswer();
+            userAnswer.setQuestionId(question.getId());
+
+            String submittedAnswer = answers.get(question.getId());
+            userAnswer.setSelectedAnswer(submittedAnswer);
+
+            if (submittedAnswer != null && submittedAnswer.equals(question.getCorrectAnswer())) {
+                userAnswer.setIsCorrect(true);
+                userAnswer.setMarksObtained(question.getMarks());
+                score += question.getMarks();
+                correctAnswers++;
+            } else {
+                userAnswer.setIsCorrect(false);
+                userAnswer.setMarksObtained(0);
+                wrongAnswers++;
+            }
+
+            userAnswers.add(userAnswer);
+        }
+
+        blackhole.consume(userAnswers);
+        blackhole.consume(score + correctAnswers + wrongAnswers);
+    }
+
+    // As QuizService.performQuizSubmission does it
+    @Benchmark
+    public void compiledSubmission(Blackhole blackhole) {
+        AnswerKey.Score score = answerKey.score(answers);
+        List<UserAnswer> userAnswers = new ArrayList<>(answerKey.size());
+
+        for (int i = 0; i < answerKey.size(); i++) {
+            UserAnswer userAnswer = new UserAnswer();
+            userAnswer.setQuestionId(answerKey.questionId(i));
+            userAnswer.setSelectedAnswer(answers.get(answerKey.questionId(i)));
+            userAnswer.setIsCorrect(score.isCorrect(i));
+            userAnswer.setMarksObtained(score.isCorrect(i) ? answerKey.marks(i) : 0);
+            userAnswers.add(userAnswer);
+        }
+
+        blackhole.consume(userAnswers);
+        blackhole.consume(score);
+    }
+
+    @Benchmark
+    public int legacyScoring() {
+        int score = 0;
+        int correctAnswers = 0;
+        int wrongAnswers = 0;
+
+        for (Question question : questions) {
+            String submittedAnswer = answers.get(question.getId());
+            if (submittedAnswer != null && submittedAnswer.equals(question.getCorrectAnswer())) {
+                score += question.getMarks();
+                correctAnswers++;
+            } else {
+                wrongAnswers++;
+            }
+        }
+
+        return score + correctAnswers + wrongAnswers;
+    }
+
+    @Benchmark
+    public AnswerKey.Score compiledScoring() {
+        return answerKey.score(answers);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AnswerKeyScoringBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package Quiz.App.Quiz.App.benchmark;
+
+import Quiz.App.Quiz.App.util.StripedTokenBucket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the striped CAS token bucket against a token-bucket map behind
+ * one global lock, with 64 threads each hammering either its own client key
+ * or a single shared hot key.
+ *
+ * Capacity and refill are set so nearly every call is rejected, which is
+ * the flood case the limiter exists for.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=Quiz.App.Quiz.App.benchmark.RateLimiterContentionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class RateLimiterContentionBenchmark {
+
+    private static final int CAPACITY = 20;
+    private static final int REFILL_PER_SECOND = 2;
+
+    private StripedTokenBucket striped;
+    private LockedTokenBuckets locked;
+
+    @Setup
+    public void setUp() {
+        striped = new StripedTokenBucket(4096, CAPACITY, REFILL_PER_SECOND);
+        locked = new LockedTokenBuckets(CAPACITY, REFILL_PER_SECOND);
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+        private String key;
+
+        @Setup
+        public void setUp() {
+            key = "ip:10.0.0." + NEXT.incrementAndGet();
+        }
+    }
+
+    @Benchmark
+    public long stripedDistinctKeys(Client client) {
+        return striped.tryAcquire(client.key);
+    }
+
+    @Benchmark
+    public long stripedHotKey() {
+        return striped.tryAcquire("ip:10.0.0.1");
+    }
+
+    @Benchmark
+    public long lockedDistinctKeys(Client client) {
+        return locked.tryAcquire(client.key);
+    }
+
+    @Benchmark
+    public long lockedHotKey() {
+        return locked.tryAcquire("ip:10.0.0.1");
+    }
+
+    /**
+     * The straightforward alternative: exact per-key buckets in a map, one lock for all of them
+     */
+    private static final class LockedTokenBuckets {
+        private final Map<String, double[]> buckets = new HashMap<>();
+        private final double capacity;
+        private final double refillPerMilli;
+
+        private LockedTokenBuckets(int capacity, int refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerMilli = refillPerSecond / 1000.0;
+        }
+
+        private synchronized long tryAcquire(String key) {
+            long now = System.currentTimeMillis();
+            double[] bucket = buckets.computeIfAbsent(key, k -> new double[]{capacity, now});
+            bucket[0] = Math.min(capacity, bucket[0] + (now - bucket[1]) * refillPerMilli);
+            bucket[1] = now;
+            if (bucket[0] < 1) {
+                return (long) Math.ceil((1 - bucket[0]) / refillPerMilli);
+            }
+            bucket[0] -= 1;
+            return 0;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimiterContentionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,160 @@
+package Quiz.App.Quiz.App.benchmark;
+
+import Quiz.App.Quiz.App.entity.QuizResult;
+import Quiz.App.Quiz.App.service.MongoAggregationService;
+import Quiz.App.Quiz.App.support.EmbeddedMongo;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the typed user activity pipeline, mapped to records, against
+ * the original untyped shape built per call and mapped to Map, both run
+ * on an embedded MongoDB.
+ *
+ * The untyped variant here uses the stored field names so both return the
+ * same groups; with property names it collapses every user into one group.
+ * Setup fails if the two don't return one group per user.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=Quiz.App.Quiz.App.benchmark.UserActivityAggregationBenchmark
+ * Add "-prof gc" through JMH options to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserActivityAggregationBenchmark {
+
+    @Param({"1000", "10000"})
+    private int resultCount;
+
+    private EmbeddedMongo mongo;
+    private MongoTemplate template;
+    private MongoAggregationService service;
+    private List<Document> rawUserActivity;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mongo = new EmbeddedMongo();
+        template = mongo.template();
+        service = new MongoAggregationService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", template);
+
+        Random random = new Random(42);
+        List<QuizResult> results = new ArrayList<>(resultCount);
+        Set<String> userIds = new HashSet<>();
+        for (int i = 0; i < resultCount; i++) {
+            int user = random.nextInt(200);
+            userIds.add("user-" + user);
+            QuizResult result = new QuizResult();
+            result.setUserId("user-" + user);
+            result.setUserUsername("name-" + user);
+            result.setQuizId("quiz-" + random.nextInt(20));
+            result.setScore(random.nextInt(100));
+            result.setCompletedAt(LocalDateTime.now().minusMinutes(i));
+            results.add(result);
+        }
+        template.insertAll(results);
+
+        rawUserActivity = template.aggregate(Aggregation.newAggregation(QuizResult.class,
+                        Aggregation.group("userId", "userUsername")
+                                .count().as("attemptCount")
+                                .sum("score").as("totalScore")
+                                .avg("score").as("averageScore")
+                                .max("completedAt").as("lastActivity"),
+                        Aggregation.project("attemptCount", "totalScore", "averageScore", "lastActivity")
+                                .and("_id.userId").as("userId")
+                                .and("_id.userUsername").as("username")
+                                .andExclude("_id")), Document.class).getMappedResults();
+
+        int typedGroups = service.findUserActivityReport().size();
+        if (typedGroups != userIds.size() || rawUserActivity.size() != userIds.size()) {
+            throw new IllegalStateException("Expected " + userIds.size() + " user groups, got " + typedGroups
+                    + " typed and " + rawUserActivity.size() + " untyped");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongo.close();
+    }
+
+    @Benchmark
+    @SuppressWarnings("rawtypes")
+    public List<Map> untypedMapPipeline() {
+        return template.aggregate(Aggregation.newAggregation(
+                Aggregation.group("user_id", "user_username")
+                        .count().as("attemptCount")
+                        .sum("score").as("totalScore")
+                        .avg("score").as("averageScore")
+                        .max("completed_at").as("lastActivity"),
+                Aggregation.sort(Sort.Direction.DESC, "attemptCount")), "quiz_results", Map.class).getMappedResults();
+    }
+
+    @Benchmark
+    public List<MongoAggregationService.UserActivity> typedRecordPipeline() {
+        return service.findUserActivityReport();
+    }
+
+    // Client-side mapping only, on documents already fetched, since the embedded
+    // server's own allocations dominate the end-to-end numbers above
+
+    @Benchmark
+    public void mapToMap(Blackhole blackhole) {
+        for (Document document : rawUserActivity) {
+            blackhole.consume(template.getConverter().read(Map.class, document));
+        }
+    }
+
+    @Benchmark
+    public void mapToRecordWithConverter(Blackhole blackhole) {
+        for (Document document : rawUserActivity) {
+            blackhole.consume(template.getConverter().read(MongoAggregationService.UserActivity.class, document));
+        }
+    }
+
+    @Benchmark
+    public void mapToRecord(Blackhole blackhole) {
+        for (Document document : rawUserActivity) {
+            blackhole.consume(MongoAggregationService.UserActivity.from(document));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserActivityAggregationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.QuizResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LeaderboardIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private LeaderboardIndex index;
+
+    @BeforeEach
+    void newIndex() {
+        index = new LeaderboardIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+    }
+
+    @Test
+    void ranksByScoreThenEarlierCompletion() {
+        QuizResult late = result("r1", "alice", "quiz-1", 8, 5);
+        QuizResult early = result("r2", "bob", "quiz-1", 8, 1);
+        QuizResult low = result("r3", "carol", "quiz-2", 3, 0);
+        QuizResult high = result("r4", "dave", "quiz-2", 10, 9);
+        List.of(late, early, low, high).forEach(index::record);
+
+        assertEquals(List.of("r4", "r2", "r1", "r3"), resultIds(index.topGlobal(10)));
+        assertEquals(List.of("r4", "r2"), resultIds(index.topGlobal(2)));
+        assertEquals(List.of("r2", "r1"), resultIds(index.topForQuiz("quiz-1", 10)));
+        assertEquals(List.of(), index.topForQuiz("quiz-3", 10));
+
+        assertEquals(1, index.globalRank(RankedResult.of(high)));
+        assertEquals(3, index.globalRank(RankedResult.of(late)));
+        assertEquals(0, index.globalRank(RankedResult.of(result("r9", "erin", "quiz-1", 5, 0))));
+    }
+
+    @Test
+    void returnsNeighboursAroundARank() {
+        for (int i = 0; i < 10; i++) {
+            index.record(result("r" + i, "user" + i, "quiz-1", 100 - i, 0));
+        }
+
+        assertEquals(List.of("r3", "r4", "r5", "r6", "r7"), resultIds(index.around(6, 2)));
+        assertEquals(List.of("r0", "r1", "r2"), resultIds(index.around(1, 2)));
+        assertEquals(List.of("r8", "r9"), resultIds(index.around(10, 1)));
+    }
+
+    @Test
+    void ranksMoveUpWhenResultsAreRemoved() {
+        index.record(result("r1", "alice", "quiz-1", 9, 0));
+        index.record(result("r2", "bob", "quiz-1", 7, 0));
+        index.record(result("r3", "alice", "quiz-2", 5, 0));
+        QuizResult last = result("r4", "carol", "quiz-2", 1, 0);
+        index.record(last);
+
+        index.removeResult("r2");
+        assertEquals(3, index.globalRank(RankedResult.of(last)));
+
+        index.removeUser("u-alice");
+        assertEquals(1, index.globalRank(RankedResult.of(last)));
+        assertEquals(List.of("r4"), resultIds(index.topForQuiz("quiz-2", 10)));
+        assertEquals(List.of(), index.getUserEntriesByUsername("alice"));
+        assertEquals(0, index.attemptCount("u-alice"));
+    }
+
+    @Test
+    void recordingTheSameResultTwiceKeepsOneEntry() {
+        QuizResult result = result("r1", "alice", "quiz-1", 9, 0);
+        index.record(result);
+        index.record(result);
+
+        assertEquals(1, index.topGlobal(10).size());
+        assertEquals(1, index.attemptCount("u-alice"));
+    }
+
+    private static QuizResult result(String id, String username, String quizId, int score, int minutes) {
+        QuizResult result = new QuizResult();
+        result.setId(id);
+        result.setUserId("u-" + username);
+        result.setUserUsername(username);
+        result.setQuizId(quizId);
+        result.setScore(score);
+        result.setCompletedAt(START.plusMinutes(minutes));
+        return result;
+    }
+
+    private static List<String> resultIds(List<RankedResult> results) {
+        return results.stream().map(RankedResult::getResultId).toList();
+    }
+}
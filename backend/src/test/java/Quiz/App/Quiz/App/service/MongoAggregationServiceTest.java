@@ -0,0 +1,133 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.QuizResult;
+import Quiz.App.Quiz.App.support.EmbeddedMongo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MongoAggregationServiceTest {
+
+    private static EmbeddedMongo mongo;
+    private static MongoAggregationService service;
+
+    @BeforeAll
+    static void setUp() {
+        mongo = new EmbeddedMongo();
+        service = new MongoAggregationService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongo.template());
+
+        // alice: 3 attempts on quiz-1, bob: 2 attempts on quiz-2, carol: 1 attempt on quiz-1
+        insert("u-alice", "alice", "quiz-1", "Java", 8);
+        insert("u-alice", "alice", "quiz-1", "Java", 6);
+        insert("u-alice", "alice", "quiz-1", "Java", 10);
+        insert("u-bob", "bob", "quiz-2", "Spring", 4);
+        insert("u-bob", "bob", "quiz-2", "Spring", 5);
+        insert("u-carol", "carol", "quiz-1", "Java", 9);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mongo.close();
+    }
+
+    private static void insert(String userId, String username, String quizId, String quizTitle, int score) {
+        QuizResult result = new QuizResult();
+        result.setUserId(userId);
+        result.setUserUsername(username);
+        result.setQuizId(quizId);
+        result.setQuizTitle(quizTitle);
+        result.setScore(score);
+        result.setCompletedAt(LocalDateTime.now());
+        mongo.template().insert(result);
+    }
+
+    @Test
+    void countsEachUserOnce() {
+        // Grouping on the unmapped "userId" collapsed every result into one null group
+        Set<String> userIds = new HashSet<>();
+        service.forEachUserId(LocalDateTime.now().plusMinutes(1), userIds::add);
+        assertEquals(Set.of("u-alice", "u-bob", "u-carol"), userIds);
+    }
+
+    @Test
+    void groupsUserActivityByStoredUserId() {
+        Map<String, MongoAggregationService.UserActivity> byUser = service.findUserActivityReport().stream()
+                .collect(Collectors.toMap(MongoAggregationService.UserActivity::username, activity -> activity));
+
+        assertEquals(3, byUser.size());
+        MongoAggregationService.UserActivity alice = byUser.get("alice");
+        assertEquals("u-alice", alice.userId());
+        assertEquals(3, alice.attemptCount());
+        assertEquals(24, alice.totalScore());
+        assertEquals(8.0, alice.averageScore(), 0.001);
+        assertTrue(alice.lastActivity() != null);
+    }
+
+    @Test
+    void ranksTopPerformers() {
+        List<MongoAggregationService.UserActivity> top = service.findTopPerformersByAverageScore(2);
+        assertEquals(List.of("carol", "alice"),
+                top.stream().map(MongoAggregationService.UserActivity::username).collect(Collectors.toList()));
+    }
+
+    @Test
+    void groupsQuizPerformanceByStoredQuizId() {
+        Map<String, MongoAggregationService.QuizPerformance> byQuiz = service.findQuizPerformanceReport().stream()
+                .collect(Collectors.toMap(MongoAggregationService.QuizPerformance::quizId, performance -> performance));
+
+        assertEquals(2, byQuiz.size());
+        MongoAggregationService.QuizPerformance java = byQuiz.get("quiz-1");
+        assertEquals("Java", java.quizTitle());
+        assertEquals(4, java.attemptCount());
+        assertEquals(10, java.maxScore());
+        assertEquals(6, java.minScore());
+    }
+
+    @Test
+    void summarizesAllScoresInOnePass() {
+        MongoAggregationService.ScoreSummary summary = service.getScoreSummary();
+        assertEquals(6, summary.attempts());
+        assertEquals(7.0, summary.averageScore(), 0.001);
+        assertEquals(10, summary.highestScore());
+    }
+
+    @Test
+    void totalsLeaderboardScoresInOneGroup() {
+        MongoAggregationService.LeaderboardTotals totals = service.getLeaderboardTotals(null);
+        assertEquals(6, totals.attempts());
+        assertEquals(42, totals.totalScore());
+        assertEquals(10, totals.highestScore());
+        assertEquals(7.0, totals.averageScore(), 0.001);
+        assertEquals(3, service.countParticipants());
+
+        // Nothing was completed before the epoch
+        MongoAggregationService.LeaderboardTotals none = service.getLeaderboardTotals(LocalDateTime.of(1970, 1, 1, 0, 0));
+        assertEquals(0, none.attempts());
+        assertEquals(0, none.highestScore());
+    }
+
+    @Test
+    void streamsResultsCompletedSinceACutoff() {
+        List<QuizResult> all = new ArrayList<>();
+        service.forEachResultCompletedSince(LocalDateTime.of(1970, 1, 1, 0, 0), all::add);
+        assertEquals(6, all.size());
+        assertTrue(all.stream().allMatch(result -> result.getId() != null && result.getUserId() != null));
+
+        List<QuizResult> none = new ArrayList<>();
+        service.forEachResultCompletedSince(LocalDateTime.now().plusMinutes(1), none::add);
+        assertEquals(0, none.size());
+    }
+}
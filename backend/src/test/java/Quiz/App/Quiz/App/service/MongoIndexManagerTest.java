@@ -0,0 +1,307 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.repository.QuestionRepository;
+import Quiz.App.Quiz.App.repository.QuizResultRepository;
+import Quiz.App.Quiz.App.repository.UserAnswerRepository;
+import Quiz.App.Quiz.App.support.EmbeddedMongo;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs every repository query on the hot path, captures the commands they
+ * send and fails if any of them would scan the whole collection.
+ *
+ * The authoritative check asks the server's explain command for the winning
+ * plan. The embedded server has no query planner, so that check is skipped
+ * unless the suite runs against a real mongod, e.g.
+ * {@code mvn test -Dmongodb.test.uri=mongodb://localhost:27017}. The plan
+ * derived from the indexes the server reports is checked on both: an index
+ * is a candidate when its leading field is constrained by the filter, or when
+ * its leading fields provide the requested sort, as MongoDB plans it.
+ */
+class MongoIndexManagerTest {
+
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "count", "aggregate", "delete");
+    private static final Set<String> INDEXABLE_OPERATORS = Set.of("$eq", "$in", "$gt", "$gte", "$lt", "$lte");
+
+    private static final List<Document> commands = new CopyOnWriteArrayList<>();
+    private static EmbeddedMongo mongo;
+    private static boolean explainSupported;
+    private static MongoIndexManager indexManager;
+    private static QuizResultRepository quizResultRepository;
+    private static QuestionRepository questionRepository;
+    private static UserAnswerRepository userAnswerRepository;
+
+    @BeforeAll
+    static void setUp() {
+        mongo = new EmbeddedMongo(System.getProperty("mongodb.test.uri"), new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                if (QUERY_COMMANDS.contains(event.getCommandName())) {
+                    commands.add(Document.parse(event.getCommand().toJson()));
+                }
+            }
+        });
+        indexManager = new MongoIndexManager();
+        ReflectionTestUtils.setField(indexManager, "mongoTemplate", mongo.template());
+
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongo.template());
+        quizResultRepository = factory.getRepository(QuizResultRepository.class);
+        questionRepository = factory.getRepository(QuestionRepository.class);
+        userAnswerRepository = factory.getRepository(UserAnswerRepository.class);
+        explainSupported = explainSupported();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mongo.close();
+    }
+
+    @BeforeEach
+    void dropCollections() {
+        for (String collection : List.of("quiz_results", "questions", "user_answers")) {
+            mongo.template().dropCollection(collection);
+        }
+    }
+
+    @Test
+    void createsEveryDeclaredIndex() {
+        Map<String, Object> run = indexManager.reconcile();
+
+        assertEquals(MongoIndexManager.INDEXES.size(), run.get("created"));
+        for (MongoIndexManager.ManagedIndex index : MongoIndexManager.INDEXES) {
+            Document existing = indexNamed(index.collection(), index.name());
+            assertTrue(existing != null, "missing index " + index.name());
+            assertEquals(new ArrayList<>(index.keys().keySet()),
+                    new ArrayList<>(existing.get("key", Document.class).keySet()));
+        }
+    }
+
+    @Test
+    void leavesMatchingIndexesAlone() {
+        indexManager.reconcile();
+        Map<String, Object> run = indexManager.reconcile();
+
+        assertEquals(MongoIndexManager.INDEXES.size(), run.get("unchanged"));
+        assertEquals(0, run.get("created"));
+        assertEquals(0, run.get("rebuilt"));
+    }
+
+    @Test
+    void replacesIndexesWithChangedKeysOrAnotherName() {
+        // Same name with an outdated key, and the right keys under the server's default name
+        mongo.template().getCollection("quiz_results").createIndex(new Document("score", 1),
+                new IndexOptions().name("score_desc"));
+        mongo.template().getCollection("questions").createIndex(new Document("quiz_id", 1));
+
+        Map<String, Object> run = indexManager.reconcile();
+
+        assertEquals(2, run.get("rebuilt"));
+        assertEquals(-1, indexNamed("quiz_results", "score_desc").get("key", Document.class).get("score", Number.class).intValue());
+        assertTrue(indexNamed("questions", "quiz_id_1") == null);
+        assertTrue(indexNamed("questions", "quiz_id_asc") != null);
+    }
+
+    @Test
+    void keepsClashingIndexesWithOptions() {
+        // The declared keys, but unique under another name and sparse under the declared name
+        mongo.template().getCollection("questions").createIndex(new Document("quiz_id", 1),
+                new IndexOptions().unique(true));
+        mongo.template().getCollection("user_answers").createIndex(new Document("quiz_result_id", 1),
+                new IndexOptions().name("quiz_result_id_asc").sparse(true));
+
+        Map<String, Object> run = indexManager.reconcile();
+
+        assertEquals(2, run.get("conflicts"));
+        assertEquals(Boolean.TRUE, indexNamed("questions", "quiz_id_1").get("unique"));
+        assertTrue(indexNamed("questions", "quiz_id_asc") == null);
+        assertEquals(Boolean.TRUE, indexNamed("user_answers", "quiz_result_id_asc").get("sparse"));
+    }
+
+    @Test
+    void hotPathQueriesAvoidCollectionScansInExplain() {
+        assumeTrue(explainSupported, "explain needs a real mongod, set -Dmongodb.test.uri");
+        for (Document command : hotPathCommands()) {
+            String plan = explainedPlan(command);
+            assertFalse(plan.contains("COLLSCAN"), "collection scan for " + command.toJson() + ": " + plan);
+        }
+    }
+
+    @Test
+    void hotPathQueriesUseAnIndex() {
+        for (Document command : hotPathCommands()) {
+            String plan = derivedPlan(command);
+            assertFalse(plan.contains("COLLSCAN"), "collection scan for " + command.toJson() + ": " + plan);
+        }
+    }
+
+    @Test
+    void reportsCollectionScanForUnindexedQuery() {
+        // Keeps the checks above honest
+        indexManager.reconcile();
+        commands.clear();
+
+        mongo.template().getCollection("quiz_results").find(new Document("user_username", "alice")).first();
+
+        assertEquals(1, commands.size());
+        assertTrue(derivedPlan(commands.get(0)).contains("COLLSCAN"));
+        if (explainSupported) {
+            assertTrue(explainedPlan(commands.get(0)).contains("COLLSCAN"));
+        }
+    }
+
+    private static List<Document> hotPathCommands() {
+        indexManager.reconcile();
+        commands.clear();
+
+        LocalDateTime now = LocalDateTime.now();
+        questionRepository.findByQuizId("quiz-1");
+        questionRepository.findByQuizIdIn(List.of("quiz-1", "quiz-2"));
+        questionRepository.deleteByQuizId("quiz-3");
+        userAnswerRepository.findByQuizResultId("result-1");
+        userAnswerRepository.findByQuizResultIdIn(List.of("result-1", "result-2"));
+        userAnswerRepository.deleteByQuizResultId("result-3");
+        quizResultRepository.findByUserIdOrderByCompletedAtDesc("user-1");
+        quizResultRepository.findByUserId("user-1");
+        quizResultRepository.countByUserId("user-1");
+        quizResultRepository.deleteByUserId("user-2");
+        quizResultRepository.findTopByOrderByScoreDesc(Limit.of(10));
+        quizResultRepository.findTopByQuizIdOrderByScoreDesc("quiz-1", Limit.of(10));
+        quizResultRepository.findTopByCompletedAtAfterOrderByScoreDesc(now.minusDays(7), Limit.of(10));
+        quizResultRepository.findHistoryPage("user-1", Limit.of(20));
+        quizResultRepository.findHistoryPageAfter("user-1", now, new ObjectId(), Limit.of(20));
+        quizResultRepository.findResultsByUserId("user-1");
+        quizResultRepository.findByCompletedAtAfterOrderByCompletedAtDesc(now.minusDays(30));
+
+        assertTrue(commands.size() >= 17, "expected a command per query, captured " + commands.size());
+        return new ArrayList<>(commands);
+    }
+
+    // Error 59 is CommandNotFound
+    private static boolean explainSupported() {
+        try {
+            mongo.template().getDb().runCommand(new Document("explain",
+                    new Document("find", "quiz_results").append("filter", new Document())));
+            return true;
+        } catch (MongoCommandException e) {
+            if (e.getErrorCode() != 59) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    private static String explainedPlan(Document command) {
+        Document explainable = new Document(command);
+        explainable.remove("$db");
+        explainable.remove("lsid");
+        Document explain = mongo.template().getDb().runCommand(new Document("explain", explainable));
+        return explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+    }
+
+    private static String derivedPlan(Document command) {
+        String commandName = command.keySet().iterator().next();
+        String collection = command.getString(commandName);
+        Document filter;
+        Document sort = new Document();
+        switch (commandName) {
+            case "find" -> {
+                filter = command.get("filter", new Document());
+                sort = command.get("sort", new Document());
+            }
+            case "count" -> filter = command.get("query", new Document());
+            case "delete" -> filter = command.getList("deletes", Document.class).get(0).get("q", Document.class);
+            case "aggregate" -> {
+                Document first = command.getList("pipeline", Document.class).get(0);
+                filter = first.get("$match", new Document());
+            }
+            default -> throw new IllegalArgumentException(commandName);
+        }
+
+        List<Document> indexes = mongo.template().getCollection(collection).listIndexes().into(new ArrayList<>());
+        for (Document index : indexes) {
+            if (usable(index.get("key", Document.class), filter, sort)) {
+                return "IXSCAN " + index.getString("name");
+            }
+        }
+        return "COLLSCAN";
+    }
+
+    private static boolean usable(Document keys, Document filter, Document sort) {
+        String leading = keys.keySet().iterator().next();
+        if (constrains(filter, leading)) {
+            return true;
+        }
+        // An $or is answered from indexes only if every branch is
+        if (filter.containsKey("$or") && filter.getList("$or", Document.class).stream()
+                .allMatch(branch -> constrains(branch, leading))) {
+            return true;
+        }
+        return providesSort(keys, sort);
+    }
+
+    private static boolean constrains(Document filter, String field) {
+        if (!filter.containsKey(field)) {
+            return false;
+        }
+        Object predicate = filter.get(field);
+        return !(predicate instanceof Document operators)
+                || !operators.keySet().iterator().next().startsWith("$")
+                || INDEXABLE_OPERATORS.containsAll(operators.keySet());
+    }
+
+    // The sort is a prefix of the index keys, all in the index's direction or all reversed
+    private static boolean providesSort(Document keys, Document sort) {
+        if (sort.isEmpty() || sort.size() > keys.size()) {
+            return false;
+        }
+        List<String> keyFields = new ArrayList<>(keys.keySet());
+        List<String> sortFields = new ArrayList<>(sort.keySet());
+        Boolean reversed = null;
+        for (int i = 0; i < sortFields.size(); i++) {
+            if (!keyFields.get(i).equals(sortFields.get(i))) {
+                return false;
+            }
+            boolean same = Integer.signum(((Number) keys.get(keyFields.get(i))).intValue())
+                    == Integer.signum(((Number) sort.get(sortFields.get(i))).intValue());
+            if (reversed == null) {
+                reversed = !same;
+            } else if (reversed == same) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Document indexNamed(String collection, String name) {
+        for (Document index : mongo.template().getCollection(collection).listIndexes()) {
+            if (name.equals(index.getString("name"))) {
+                return index;
+            }
+        }
+        return null;
+    }
+}
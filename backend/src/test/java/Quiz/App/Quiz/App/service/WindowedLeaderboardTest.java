@@ -0,0 +1,115 @@
+package Quiz.App.Quiz.App.service;
+
+import Quiz.App.Quiz.App.entity.QuizResult;
+import Quiz.App.Quiz.App.support.EmbeddedMongo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WindowedLeaderboardTest {
+
+    private static EmbeddedMongo mongo;
+    private WindowedLeaderboard leaderboard;
+
+    @BeforeAll
+    static void setUp() {
+        mongo = new EmbeddedMongo();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mongo.close();
+    }
+
+    @BeforeEach
+    void newLeaderboard() {
+        mongo.template().dropCollection(QuizResult.class);
+        leaderboard = new WindowedLeaderboard();
+        ReflectionTestUtils.setField(leaderboard, "mongoTemplate", mongo.template());
+        ReflectionTestUtils.setField(leaderboard, "enabled", true);
+        ReflectionTestUtils.setField(leaderboard, "maxDays", 30);
+        ReflectionTestUtils.setField(leaderboard, "bucketSize", 1000);
+    }
+
+    @Test
+    void liveResultRecordedBeforeItIsStreamedAppearsOnce() {
+        QuizResult live = result("alice", 8);
+        mongo.template().insert(live);
+        build();
+
+        // The submission path records the in-memory copy, with more precision than MongoDB keeps
+        live.setCompletedAt(live.getCompletedAt().withNano(123_456_789));
+        leaderboard.record(live);
+
+        List<RankedResult> top = leaderboard.top(7, 10).orElseThrow();
+        assertEquals(1, top.size());
+        assertEquals(live.getId(), top.get(0).getResultId());
+    }
+
+    @Test
+    void streamedResultRecordedAgainLiveAppearsOnce() {
+        QuizResult live = result("alice", 8);
+        live.setCompletedAt(live.getCompletedAt().withNano(123_456_789));
+        mongo.template().insert(live);
+        build();
+        QuizResult stored = mongo.template().findById(live.getId(), QuizResult.class);
+
+        leaderboard.record(stored);
+        leaderboard.record(live);
+
+        assertEquals(1, leaderboard.top(7, 10).orElseThrow().size());
+    }
+
+    @Test
+    void removedResultCanBeRecordedAgain() {
+        QuizResult first = result("alice", 8);
+        QuizResult second = result("bob", 5);
+        mongo.template().insertAll(List.of(first, second));
+        build();
+
+        leaderboard.removeResult(first.getId());
+        assertEquals(List.of(second.getId()), resultIds(leaderboard.top(7, 10).orElseThrow()));
+
+        leaderboard.record(first);
+        assertEquals(List.of(first.getId(), second.getId()), resultIds(leaderboard.top(7, 10).orElseThrow()));
+    }
+
+    @Test
+    void newResultsAreNotDeduplicatedAway() {
+        build();
+        QuizResult first = result("alice", 8);
+        QuizResult second = result("alice", 8);
+        second.setCompletedAt(first.getCompletedAt());
+        mongo.template().insertAll(List.of(first, second));
+
+        leaderboard.record(first);
+        leaderboard.record(second);
+
+        assertEquals(2, leaderboard.top(7, 10).orElseThrow().size());
+    }
+
+    private void build() {
+        ReflectionTestUtils.invokeMethod(leaderboard, "build");
+    }
+
+    private static QuizResult result(String username, int score) {
+        QuizResult result = new QuizResult();
+        result.setUserId("u-" + username);
+        result.setUserUsername(username);
+        result.setQuizId("quiz-1");
+        result.setScore(score);
+        result.setCompletedAt(LocalDateTime.now().withNano(0));
+        return result;
+    }
+
+    private static List<String> resultIds(List<RankedResult> results) {
+        return results.stream().map(RankedResult::getResultId).toList();
+    }
+}
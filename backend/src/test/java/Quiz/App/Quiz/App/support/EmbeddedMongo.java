@@ -0,0 +1,82 @@
+package Quiz.App.Quiz.App.support;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.MongoVersion;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+/**
+ * In-process MongoDB wire-protocol server for tests and benchmarks that
+ * need real query and aggregation execution without a mongod binary.
+ *
+ * Tests that need the real query planner can connect to a running mongod
+ * instead; they own the quiz_test database there and drop its collections.
+ */
+public final class EmbeddedMongo implements AutoCloseable {
+
+    // The driver requires wire version 8 (MongoDB 4.2) or newer
+    private static final MongoVersion SERVER_VERSION = new MongoVersion() {
+        @Override
+        public List<Integer> getVersionArray() {
+            return List.of(4, 2, 0);
+        }
+
+        @Override
+        public int getWireVersion() {
+            return 8;
+        }
+    };
+
+    private final MongoServer server;
+    private final MongoClient client;
+    private final MongoTemplate template;
+
+    public EmbeddedMongo() {
+        this(new CommandListener[0]);
+    }
+
+    /**
+     * @param listeners notified of every command the template sends, e.g. to capture query shapes
+     */
+    public EmbeddedMongo(CommandListener... listeners) {
+        this(null, listeners);
+    }
+
+    /**
+     * @param connectionString a running mongod to use, or null to start the in-process server
+     */
+    public EmbeddedMongo(String connectionString, CommandListener... listeners) {
+        if (connectionString == null) {
+            server = new MongoServer(new MemoryBackend().version(SERVER_VERSION));
+            connectionString = server.bindAndGetConnectionString();
+        } else {
+            server = null;
+        }
+        MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionString));
+        for (CommandListener listener : listeners) {
+            settings.addCommandListener(listener);
+        }
+        client = MongoClients.create(settings.build());
+        template = new MongoTemplate(client, "quiz_test");
+    }
+
+    public MongoTemplate template() {
+        return template;
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        if (server != null) {
+            server.shutdownNow();
+        }
+    }
+}
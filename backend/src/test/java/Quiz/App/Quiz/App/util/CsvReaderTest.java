@@ -0,0 +1,122 @@
+package Quiz.App.Quiz.App.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    private static final int MAX_RECORD_CHARS = 1000;
+
+    @Test
+    void readsPlainRecords() throws IOException {
+        assertEquals(List.of(List.of("name", "score"), List.of("alice", "8")),
+                readAll("name,score\nalice,8\n", MAX_RECORD_CHARS));
+    }
+
+    @Test
+    void returnsNullAtEndOfInput() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a\n"), MAX_RECORD_CHARS);
+
+        assertEquals(List.of("a"), reader.readRecord());
+        assertNull(reader.readRecord());
+        assertNull(reader.readRecord());
+        assertNull(new CsvReader(new StringReader(""), MAX_RECORD_CHARS).readRecord());
+    }
+
+    @Test
+    void keepsEmptyFields() throws IOException {
+        assertEquals(List.of(List.of("", "", ""), List.of("a", "", "b")),
+                readAll(",,\na,\"\",b\n", MAX_RECORD_CHARS));
+    }
+
+    @Test
+    void unquotesFieldsWithSeparatorsAndEscapedQuotes() throws IOException {
+        assertEquals(List.of(List.of("a,b", "say \"hi\"", "\"", "c")),
+                readAll("\"a,b\",\"say \"\"hi\"\"\",\"\"\"\",c\n", MAX_RECORD_CHARS));
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotes() throws IOException {
+        assertEquals(List.of(List.of("line 1\r\nline 2\nline 3", "x"), List.of("y", "z")),
+                readAll("\"line 1\r\nline 2\nline 3\",x\ny,z\n", MAX_RECORD_CHARS));
+    }
+
+    @Test
+    void acceptsCrlfAndMissingFinalLineBreak() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d")),
+                readAll("a,b\r\nc,d", MAX_RECORD_CHARS));
+    }
+
+    @Test
+    void keepsBareCarriageReturnInUnquotedField() throws IOException {
+        assertEquals(List.of(List.of("a\rb")), readAll("a\rb\n", MAX_RECORD_CHARS));
+    }
+
+    @Test
+    void skipsByteOrderMarkOnlyAtStart() throws IOException {
+        assertEquals(List.of(List.of("name"), List.of("\uFEFFalice")),
+                readAll("\uFEFFname\n\uFEFFalice\n", MAX_RECORD_CHARS));
+    }
+
+    @Test
+    void enforcesRecordLengthLimitWithoutCountingLineBreak() throws IOException {
+        assertEquals(List.of(List.of("ab", "d"), List.of("wxyz")), readAll("ab,d\r\nwxyz\n", 4));
+
+        IOException e = assertThrows(IOException.class, () -> readAll("abcde\n", 4));
+        assertEquals("Record longer than 4 characters", e.getMessage());
+    }
+
+    @Test
+    void countsQuotedLineBreaksTowardsLimit() {
+        // Otherwise one open quote could buffer the rest of the upload
+        assertThrows(IOException.class, () -> readAll("\"a\n\n\n\n\n\n\"\n", 4));
+    }
+
+    @Test
+    void resumesAfterOverlongRecord() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\nabcde,\"x\ny,z\"\r\nc,d\n"), 4);
+
+        assertEquals(List.of("a", "b"), reader.readRecord());
+        // The skipped record's quoted line break doesn't end it early
+        assertThrows(CsvReader.MalformedRecordException.class, reader::readRecord);
+        assertEquals(List.of("c", "d"), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void resumesAfterOverlongRecordWithInnerQuote() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("ab\"cdef\nc\n"), 4);
+
+        // A quote inside an unquoted field is literal, so it doesn't hide the line break
+        assertThrows(CsvReader.MalformedRecordException.class, reader::readRecord);
+        assertEquals(List.of("c"), reader.readRecord());
+    }
+
+    @Test
+    void rejectsUnterminatedQuote() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("x\na,\"bc\nd\n"), MAX_RECORD_CHARS);
+
+        assertEquals(List.of("x"), reader.readRecord());
+        IOException e = assertThrows(CsvReader.MalformedRecordException.class, reader::readRecord);
+        assertEquals("Unterminated quoted field", e.getMessage());
+        assertNull(reader.readRecord());
+    }
+
+    private static List<List<String>> readAll(String csv, int maxRecordChars) throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(csv), maxRecordChars);
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.readRecord()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,52 @@
+package Quiz.App.Quiz.App.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvWriterTest {
+
+    @Test
+    void writesPlainValuesAndNumbers() throws IOException {
+        assertEquals("alice,8,2.5,true,\r\n", write("alice", 8, 2.5, true, null));
+    }
+
+    @Test
+    void quotesSeparatorsQuotesAndLineBreaks() throws IOException {
+        assertEquals("\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",\"cr\rhere\"\r\n",
+                write("a,b", "say \"hi\"", "two\nlines", "cr\rhere"));
+    }
+
+    @Test
+    void prefixesTextThatStartsLikeAFormula() throws IOException {
+        assertEquals("'=1+1,'+1,'-1,'@SUM(A1),'\tx,\"'\rx\"\r\n",
+                write("=1+1", "+1", "-1", "@SUM(A1)", "\tx", "\rx"));
+    }
+
+    @Test
+    void leavesNegativeNumbersAndInnerFormulaCharactersAlone() throws IOException {
+        assertEquals("-3,a=b,x-y\r\n", write(-3, "a=b", "x-y"));
+    }
+
+    @Test
+    void roundTripsThroughCsvReader() throws IOException {
+        String csv = write("a,b", "say \"hi\"", "two\r\nlines", "", "=cmd");
+
+        CsvReader reader = new CsvReader(new StringReader(csv), 1000);
+
+        assertEquals(List.of("a,b", "say \"hi\"", "two\r\nlines", "", "'=cmd"), reader.readRecord());
+    }
+
+    private static String write(Object... values) throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        writer.writeRow(values);
+        writer.flush();
+        return out.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package Quiz.App.Quiz.App.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    private static final int PRECISION = 14;
+    // Three standard errors for precision 14
+    private static final double MAX_ERROR = 3 * 1.04 / Math.sqrt(1 << PRECISION);
+
+    @Test
+    void staysWithinErrorBoundsAcrossCardinalities() {
+        for (int distinct : new int[] {1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog counter = new HyperLogLog(PRECISION);
+            for (int i = 0; i < distinct; i++) {
+                counter.offer("user-" + i);
+            }
+            assertWithinError(distinct, counter.estimate());
+        }
+    }
+
+    @Test
+    void isNearlyExactForSmallCardinalities() {
+        HyperLogLog counter = new HyperLogLog(PRECISION);
+        assertEquals(0, counter.estimate());
+
+        for (int i = 0; i < 100; i++) {
+            counter.offer("user-" + i);
+        }
+        assertTrue(Math.abs(counter.estimate() - 100) <= 1, "estimate " + counter.estimate());
+    }
+
+    @Test
+    void ignoresRepeatedValues() {
+        HyperLogLog counter = new HyperLogLog(PRECISION);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 20_000; i++) {
+                counter.offer("user-" + i);
+            }
+        }
+        assertWithinError(20_000, counter.estimate());
+    }
+
+    @Test
+    void mergeCountsTheUnion() {
+        HyperLogLog first = new HyperLogLog(PRECISION);
+        HyperLogLog second = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 60_000; i++) {
+            first.offer("user-" + i);
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            second.offer("user-" + i);
+        }
+
+        first.merge(second);
+
+        assertWithinError(100_000, first.estimate());
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new HyperLogLog(PRECISION - 1)));
+    }
+
+    @Test
+    void clearResetsTheCount() {
+        HyperLogLog counter = new HyperLogLog(PRECISION);
+        counter.offer("alice");
+        counter.clear();
+
+        assertEquals(0, counter.estimate());
+    }
+
+    @Test
+    void rejectsPrecisionOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(19));
+    }
+
+    private static void assertWithinError(long expected, long estimate) {
+        double error = Math.abs(estimate - expected) / (double) expected;
+        assertTrue(error <= MAX_ERROR, "estimate " + estimate + " for " + expected + " is off by " + error);
+    }
+}
@@ -0,0 +1,96 @@
+package Quiz.App.Quiz.App.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderStatisticTreeTest {
+
+    @Test
+    void matchesSortedListUnderRandomInsertsAndDeletes() {
+        Random random = new Random(42);
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        List<Integer> oracle = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(500);
+            int position = Collections.binarySearch(oracle, value);
+            if (random.nextInt(3) < 2) {
+                assertEquals(position < 0, tree.add(value));
+                if (position < 0) {
+                    oracle.add(-position - 1, value);
+                }
+            } else {
+                assertEquals(position >= 0, tree.remove(value));
+                if (position >= 0) {
+                    oracle.remove(position);
+                }
+            }
+
+            assertEquals(oracle.size(), tree.size());
+            if (i % 100 == 0) {
+                assertSameOrder(oracle, tree);
+            }
+        }
+        assertSameOrder(oracle, tree);
+    }
+
+    @Test
+    void ranksAndSelectsByPosition() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.reverseOrder());
+        for (int value : new int[] {5, 1, 9, 3, 7}) {
+            tree.add(value);
+        }
+
+        assertEquals(0, tree.indexOf(9));
+        assertEquals(4, tree.indexOf(1));
+        assertEquals(-1, tree.indexOf(4));
+        assertEquals(7, tree.get(1));
+        assertEquals(List.of(7, 5, 3), tree.range(1, 4));
+    }
+
+    @Test
+    void storesEqualElementsOnce() {
+        OrderStatisticTree<String> tree = new OrderStatisticTree<>(String.CASE_INSENSITIVE_ORDER);
+
+        assertTrue(tree.add("alice"));
+        assertFalse(tree.add("ALICE"));
+        assertEquals(1, tree.size());
+        assertTrue(tree.remove("Alice"));
+        assertTrue(tree.isEmpty());
+        assertFalse(tree.remove("alice"));
+    }
+
+    @Test
+    void clampsRangesAndRejectsOutOfBoundsPositions() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        tree.add(1);
+        tree.add(2);
+
+        assertEquals(List.of(1, 2), tree.range(-3, 10));
+        assertEquals(List.of(), tree.range(2, 5));
+        assertEquals(List.of(), tree.range(1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.get(-1));
+    }
+
+    private static void assertSameOrder(List<Integer> oracle, OrderStatisticTree<Integer> tree) {
+        assertEquals(oracle, tree.range(0, tree.size()));
+        for (int i = 0; i < oracle.size(); i++) {
+            assertEquals(oracle.get(i), tree.get(i));
+            assertEquals(i, tree.indexOf(oracle.get(i)));
+        }
+        if (oracle.size() > 10) {
+            assertEquals(oracle.subList(3, 10), tree.range(3, 10));
+        }
+    }
+}
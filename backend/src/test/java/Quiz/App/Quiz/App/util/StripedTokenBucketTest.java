@@ -0,0 +1,84 @@
+package Quiz.App.Quiz.App.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StripedTokenBucketTest {
+
+    private long now;
+
+    @Test
+    void allowsBurstUpToCapacityThenReportsWait() {
+        StripedTokenBucket bucket = newBucket(16, 3, 2);
+
+        assertEquals(0, bucket.tryAcquire("alice", now));
+        assertEquals(0, bucket.tryAcquire("alice", now));
+        assertEquals(0, bucket.tryAcquire("alice", now));
+        // Two tokens a second, so the next one is 500 ms away
+        assertEquals(500, bucket.tryAcquire("alice", now));
+        assertEquals(200, bucket.tryAcquire("alice", now + 300));
+    }
+
+    @Test
+    void refillsWithElapsedTime() {
+        StripedTokenBucket bucket = newBucket(16, 2, 4);
+        exhaust(bucket, "alice", 2);
+
+        assertEquals(0, bucket.tryAcquire("alice", now + 250));
+        assertEquals(250, bucket.tryAcquire("alice", now + 250));
+        assertEquals(0, bucket.tryAcquire("alice", now + 500));
+    }
+
+    @Test
+    void neverRefillsBeyondCapacity() {
+        StripedTokenBucket bucket = newBucket(16, 2, 10);
+        exhaust(bucket, "alice", 2);
+
+        long later = now + 3_600_000;
+        assertEquals(0, bucket.tryAcquire("alice", later));
+        assertEquals(0, bucket.tryAcquire("alice", later));
+        assertEquals(100, bucket.tryAcquire("alice", later));
+    }
+
+    @Test
+    void olderClockReadingDoesNotRefill() {
+        StripedTokenBucket bucket = newBucket(16, 1, 1);
+        assertEquals(0, bucket.tryAcquire("alice", now + 1000));
+
+        // A thread that read the clock earlier must not get the same second twice
+        assertEquals(1000, bucket.tryAcquire("alice", now));
+        assertEquals(1000, bucket.tryAcquire("alice", now + 1000));
+        assertEquals(0, bucket.tryAcquire("alice", now + 2000));
+    }
+
+    @Test
+    void keysOnOneStripeShareItsBudget() {
+        StripedTokenBucket bucket = newBucket(1, 2, 1);
+
+        assertEquals(0, bucket.tryAcquire("alice", now));
+        assertEquals(0, bucket.tryAcquire("bob", now));
+        assertEquals(1000, bucket.tryAcquire("carol", now));
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedTokenBucket(16, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new StripedTokenBucket(16, 4195, 1));
+        assertThrows(IllegalArgumentException.class, () -> new StripedTokenBucket(16, 10, 0));
+    }
+
+    private StripedTokenBucket newBucket(int stripes, int capacity, int refillPerSecond) {
+        StripedTokenBucket bucket = new StripedTokenBucket(stripes, capacity, refillPerSecond);
+        // Buckets keep time from their construction, so the test clock starts after it
+        now = System.currentTimeMillis();
+        return bucket;
+    }
+
+    private void exhaust(StripedTokenBucket bucket, String key, int capacity) {
+        for (int i = 0; i < capacity; i++) {
+            assertEquals(0, bucket.tryAcquire(key, now));
+        }
+    }
+}